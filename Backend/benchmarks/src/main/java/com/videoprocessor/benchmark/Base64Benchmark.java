@@ -0,0 +1,58 @@
+package com.videoprocessor.benchmark;
+
+import com.videoprocessor.service.ImageEncoder;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 编码后图片（jpg，质量85）的Base64编码：Base64.encodeToString（每帧分配中间字节数组），
+ * 与 EncodedImage.toBase64（编码结果写入线程内复用的缓冲区）对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class Base64Benchmark {
+
+    @Param({"480p", "1080p", "4K"})
+    private String resolution;
+
+    private byte[] data;
+    private ImageEncoder.EncodedImage encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+        try (Frame frame = BenchmarkFrames.decode(SyntheticClips.clip(resolution), 1)) {
+            // 编码结果属于当前线程的编码上下文，State 为 Scope.Thread，与基准方法在同一线程
+            encoded = BenchmarkFrames.imageEncoder().encode(frame, "jpg", 85);
+            data = encoded.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public String encodeToString() {
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    @Benchmark
+    public String encodedImageToBase64() {
+        return encoded.toBase64();
+    }
+}
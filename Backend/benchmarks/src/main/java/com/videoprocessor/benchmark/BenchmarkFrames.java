@@ -0,0 +1,35 @@
+package com.videoprocessor.benchmark;
+
+import com.videoprocessor.service.ImageEncoder;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.File;
+
+/**
+ * 基准测试的共用准备
+ */
+final class BenchmarkFrames {
+
+    private BenchmarkFrames() {}
+
+    /**
+     * 解码指定秒数处的一帧，返回与grabber无关的副本
+     */
+    static Frame decode(File clip, int seconds) throws Exception {
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(clip)) {
+            grabber.start();
+            grabber.setTimestamp(seconds * 1_000_000L);
+            return grabber.grabImage().clone();
+        }
+    }
+
+    /**
+     * 创建与服务中相同配置的图片编码器（默认启用OpenCV原生编码）
+     */
+    static ImageEncoder imageEncoder() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ImageEncoder.class);
+        return context.getBean(ImageEncoder.class);
+    }
+}
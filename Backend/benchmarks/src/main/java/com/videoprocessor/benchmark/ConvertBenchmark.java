@@ -0,0 +1,63 @@
+package com.videoprocessor.benchmark;
+
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解码帧的转换：Java2DFrameConverter 转为 BufferedImage（ImageIO编码路径），
+ * 与 OpenCVFrameConverter 包装为 Mat（原生编码路径，不复制像素）对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ConvertBenchmark {
+
+    @Param({"480p", "1080p", "4K"})
+    private String resolution;
+
+    private Frame frame;
+    private final Java2DFrameConverter java2DConverter = new Java2DFrameConverter();
+    private final OpenCVFrameConverter.ToMat matConverter = new OpenCVFrameConverter.ToMat();
+
+    @Setup
+    public void setUp() throws Exception {
+        avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+        frame = BenchmarkFrames.decode(SyntheticClips.clip(resolution), 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.close();
+    }
+
+    @Benchmark
+    public BufferedImage java2DConvert() {
+        return java2DConverter.convert(frame);
+    }
+
+    @Benchmark
+    public Mat openCvToMat() {
+        return matConverter.convert(frame);
+    }
+}
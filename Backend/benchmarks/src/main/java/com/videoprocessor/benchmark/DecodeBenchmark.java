@@ -0,0 +1,82 @@
+package com.videoprocessor.benchmark;
+
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按间隔取帧：每个采样点跳转后解码，与从头顺序解码、取每个采样点之后的第一帧对比
+ * 每次调用打开视频并取完整个视频的采样帧（10秒），结果为单次调用的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"480p", "1080p"})
+    private String resolution;
+
+    @Param({"1", "5"})
+    private int intervalSeconds;
+
+    private File clip;
+
+    @Setup
+    public void setUp() {
+        avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+        clip = SyntheticClips.clip(resolution);
+    }
+
+    @Benchmark
+    public int seekPerInterval(Blackhole blackhole) throws Exception {
+        int frames = 0;
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(clip)) {
+            grabber.start();
+            for (long ms = 0; ms < SyntheticClips.DURATION_SECONDS * 1000L; ms += intervalSeconds * 1000L) {
+                grabber.setTimestamp(ms * 1000);
+                Frame frame = grabber.grabImage();
+                if (frame != null) {
+                    blackhole.consume(frame);
+                    frames++;
+                }
+            }
+        }
+        return frames;
+    }
+
+    @Benchmark
+    public int sequentialDecode(Blackhole blackhole) throws Exception {
+        int frames = 0;
+        long nextSampleUs = 0;
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(clip)) {
+            grabber.start();
+            Frame frame;
+            while ((frame = grabber.grabImage()) != null) {
+                if (frame.timestamp >= nextSampleUs) {
+                    blackhole.consume(frame);
+                    frames++;
+                    nextSampleUs += intervalSeconds * 1_000_000L;
+                }
+            }
+        }
+        return frames;
+    }
+}
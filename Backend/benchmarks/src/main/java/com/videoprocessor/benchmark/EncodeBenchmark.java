@@ -0,0 +1,95 @@
+package com.videoprocessor.benchmark;
+
+import com.videoprocessor.service.ImageEncoder;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片编码：每次调用新建 ImageWriter 的 ImageIO.write（原实现），与 ImageEncoder（OpenCV imencode，
+ * 线程内复用缓冲区）对比。output 为 格式:质量，无损格式不带质量；ImageIO 的输入为预先转换好的 BufferedImage
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class EncodeBenchmark {
+
+    @Param({"480p", "1080p"})
+    private String resolution;
+
+    @Param({"jpg:70", "jpg:85", "jpg:95", "png", "bmp"})
+    private String output;
+
+    private String format;
+    private int quality;
+    private Frame frame;
+    private BufferedImage image;
+    private ImageEncoder imageEncoder;
+
+    @Setup
+    public void setUp() throws Exception {
+        avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+        String[] parts = output.split(":");
+        format = parts[0];
+        quality = parts.length > 1 ? Integer.parseInt(parts[1]) : 100;
+        frame = BenchmarkFrames.decode(SyntheticClips.clip(resolution), 1);
+        try (Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            BufferedImage converted = converter.convert(frame);
+            image = new BufferedImage(converted.getWidth(), converted.getHeight(), converted.getType());
+            image.setData(converted.getRaster());
+        }
+        imageEncoder = BenchmarkFrames.imageEncoder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.close();
+    }
+
+    @Benchmark
+    public byte[] imageIOWrite() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality / 100f);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public int imageEncoder() throws Exception {
+        return imageEncoder.encode(frame, format, quality).getLength();
+    }
+}
@@ -0,0 +1,83 @@
+package com.videoprocessor.benchmark;
+
+import com.videoprocessor.VideoFrameExtractorApplication;
+import com.videoprocessor.model.FrameExtractionRequest;
+import com.videoprocessor.model.FrameExtractionResponse;
+import com.videoprocessor.service.VideoProcessorService;
+import com.videoprocessor.service.VideoSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.format.support.DefaultFormattingConversionService;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端提取：VideoProcessorService.extractFrames 每秒取一帧（共10帧），jpg质量85，返回base64
+ * 服务在不启动Web服务器的Spring容器中运行，配置与 application.yml 相同，关闭上传视频缓存和业务日志
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ExtractFramesBenchmark {
+
+    @Param({"480p", "1080p", "4K"})
+    private String resolution;
+
+    private ConfigurableApplicationContext context;
+    private VideoProcessorService videoProcessorService;
+    private File clip;
+
+    @Setup
+    public void setUp() {
+        // 控制器注入Web环境提供的 mvcConversionService，不启动Web服务器时补充一个（基准不经过控制器）
+        context = new SpringApplicationBuilder(VideoFrameExtractorApplication.class)
+            .web(WebApplicationType.NONE)
+            .initializers(applicationContext -> applicationContext.getBeanFactory()
+                .registerSingleton("mvcConversionService", new DefaultFormattingConversionService()))
+            .run("--spring.main.banner-mode=off",
+                "--logging.level.com.videoprocessor=WARN",
+                "--video.processor.cache.enabled=false",
+                "--video.processor.temp-dir=target/tmp");
+        videoProcessorService = context.getBean(VideoProcessorService.class);
+        clip = SyntheticClips.clip(resolution);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int extractFrames(Blackhole blackhole) {
+        FrameExtractionRequest request = new FrameExtractionRequest();
+        request.setVideoFileName(clip.getName());
+        request.setIntervalSeconds(1);
+
+        FrameExtractionResponse response;
+        try (VideoSource source = new VideoSource(clip, clip.getName(), clip.length(), false)) {
+            response = videoProcessorService.extractFrames(source, request, videoInfo -> { }, blackhole::consume);
+        }
+        if (!response.isSuccess()) {
+            throw new IllegalStateException(response.getMessage());
+        }
+        return response.getTotalFramesExtracted();
+    }
+}
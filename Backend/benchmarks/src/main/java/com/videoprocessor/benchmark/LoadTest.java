@@ -0,0 +1,510 @@
+package com.videoprocessor.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * REST接口的压力与长稳测试
+ * 在本机启动一个独立进程的后端服务，生成指定时长与分辨率的合成视频，按权重混合并发请求
+ * /info、/extract-frames、/extract-frames-base64-only、/extract-frames-json-format，
+ * 记录各接口的吞吐量与延迟分位数、服务进程的堆与RSS峰值、线程数以及临时目录的增长，输出JSON报告。
+ * 参数为 key=value 形式，见 {@link #DEFAULTS}；整个过程不访问外部网络。
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // 并发请求数
+        DEFAULTS.put("concurrency", "8");
+        // 施压时长（秒），长稳测试可设为数小时
+        DEFAULTS.put("duration", "60");
+        // 合成视频的分辨率与时长（秒），每个请求随机选择一个视频
+        DEFAULTS.put("resolutions", "480p,1080p");
+        DEFAULTS.put("clipSeconds", "30");
+        // 各接口的请求权重
+        DEFAULTS.put("mix", "info:1,extract-frames:2,extract-frames-base64-only:2,extract-frames-json-format:1");
+        // 提取接口的间隔秒数（json-format 接口固定每秒一帧）
+        DEFAULTS.put("intervalSeconds", "5");
+        // 服务进程的最大堆
+        DEFAULTS.put("heap", "1g");
+        // 是否启用上传视频缓存与帧缓存，关闭时每个请求都完整解码
+        DEFAULTS.put("cache", "false");
+        DEFAULTS.put("port", "18080");
+        DEFAULTS.put("managementPort", "18081");
+        // 资源采样间隔（毫秒）
+        DEFAULTS.put("sampleMillis", "1000");
+        DEFAULTS.put("clipsDir", "target/clips");
+        DEFAULTS.put("workDir", "target/load");
+        DEFAULTS.put("report", "target/load-report.json");
+    }
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, String> options;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final String baseUrl;
+    private final String managementUrl;
+    private final Path workDir;
+    private final Path tempDir;
+
+    private Process app;
+    private final ResourceStats resources = new ResourceStats();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = "http://127.0.0.1:" + options.get("port") + "/api/video";
+        this.managementUrl = "http://127.0.0.1:" + options.get("managementPort") + "/actuator";
+        this.workDir = Paths.get(options.get("workDir")).toAbsolutePath();
+        this.tempDir = workDir.resolve("tmp");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0 || !DEFAULTS.containsKey(arg.substring(0, index))) {
+                throw new IllegalArgumentException("未知参数: " + arg + "，可用参数: " + DEFAULTS.keySet());
+            }
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        List<Path> clips = new ArrayList<>();
+        for (String resolution : options.get("resolutions").split(",")) {
+            clips.add(SyntheticClips.generate(Paths.get(options.get("clipsDir")), resolution.trim(),
+                Integer.parseInt(options.get("clipSeconds"))));
+        }
+        List<Endpoint> endpoints = parseMix(options.get("mix"));
+
+        startApp();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            resources.tempDirStartBytes = directorySize(tempDir);
+            long sampleMillis = Long.parseLong(options.get("sampleMillis"));
+            sampler.scheduleAtFixedRate(this::sample, 0, sampleMillis, TimeUnit.MILLISECONDS);
+
+            int concurrency = Integer.parseInt(options.get("concurrency"));
+            long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+            System.out.printf("开始施压: %d 并发，%s 秒，视频 %s%n", concurrency, options.get("duration"), clips);
+
+            long start = System.nanoTime();
+            long deadline = start + durationNanos;
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                workers.execute(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = pick(endpoints);
+                        endpoint.stats.record(send(endpoint, clips.get(ThreadLocalRandom.current().nextInt(clips.size()))));
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            // 等待服务清理完临时文件后再采样，end 反映残留
+            Thread.sleep(Math.max(2000, 2 * sampleMillis));
+            sampler.shutdown();
+            sampler.awaitTermination(10, TimeUnit.SECONDS);
+            sample();
+            resources.tempDirEndBytes = directorySize(tempDir);
+            resources.rssPeakBytes = Math.max(resources.rssPeakBytes, procStatusBytes("VmHWM"));
+
+            writeReport(endpoints, elapsedSeconds);
+        } finally {
+            sampler.shutdownNow();
+            stopApp();
+        }
+    }
+
+    /**
+     * 以独立进程启动后端服务，java.io.tmpdir 指向 workDir/tmp，视频临时文件与上传缓存都在其中，便于统计增长
+     */
+    private void startApp() throws Exception {
+        Files.createDirectories(tempDir);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        boolean cache = Boolean.parseBoolean(options.get("cache"));
+        List<String> command = new ArrayList<>(Arrays.asList(java,
+            "-Xmx" + options.get("heap"),
+            "-Djava.io.tmpdir=" + tempDir,
+            "-cp", System.getProperty("java.class.path"),
+            "com.videoprocessor.VideoFrameExtractorApplication",
+            "--server.port=" + options.get("port"),
+            "--management.server.port=" + options.get("managementPort"),
+            "--server.tomcat.mbeanregistry.enabled=true",
+            "--spring.main.banner-mode=off",
+            "--logging.level.com.videoprocessor=WARN",
+            "--video.processor.cache.enabled=" + cache,
+            "--video.processor.frame-cache.enabled=" + cache));
+        Path log = workDir.resolve("app.log");
+        app = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        System.out.println("启动服务进程 " + app.pid() + "，日志: " + log);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("服务进程已退出，见日志: " + log);
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/health")).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 服务尚未监听端口
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException("等待服务启动超时，见日志: " + log);
+    }
+
+    private void stopApp() throws InterruptedException {
+        if (app != null && app.isAlive()) {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * 以 multipart 上传视频并读完整个响应，返回请求结果
+     */
+    private Result send(Endpoint endpoint, Path clip) {
+        long start = System.nanoTime();
+        try {
+            String boundary = "----load" + UUID.randomUUID().toString().replace("-", "");
+            StringBuilder fields = new StringBuilder();
+            for (Map.Entry<String, String> field : endpoint.fields.entrySet()) {
+                fields.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(field.getKey()).append("\"\r\n\r\n")
+                    .append(field.getValue()).append("\r\n");
+            }
+            fields.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(clip.getFileName()).append("\"\r\n")
+                .append("Content-Type: video/mp4\r\n\r\n");
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + endpoint.path))
+                .timeout(Duration.ofMinutes(10))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.concat(
+                    HttpRequest.BodyPublishers.ofString(fields.toString(), StandardCharsets.UTF_8),
+                    HttpRequest.BodyPublishers.ofFile(clip),
+                    HttpRequest.BodyPublishers.ofString("\r\n--" + boundary + "--\r\n", StandardCharsets.UTF_8)))
+                .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            long bytes;
+            try (InputStream body = response.body()) {
+                bytes = body.transferTo(OutputStream.nullOutputStream());
+            }
+            boolean success = response.statusCode() / 100 == 2;
+            return new Result(System.nanoTime() - start, bytes, success,
+                success ? null : "HTTP " + response.statusCode());
+        } catch (Exception e) {
+            return new Result(System.nanoTime() - start, 0, false, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 采样服务进程的资源占用：RSS 读取 /proc，堆与线程数读取 Actuator 指标，临时目录直接统计文件大小
+     */
+    private void sample() {
+        try {
+            long rss = procStatusBytes("VmRSS");
+            double heap = metric("jvm.memory.used?tag=area:heap");
+            double threads = metric("jvm.threads.live");
+            double busy = metric("tomcat.threads.busy");
+            long tempDirBytes = directorySize(tempDir);
+            synchronized (resources) {
+                resources.rssPeakBytes = Math.max(resources.rssPeakBytes, rss);
+                resources.heapPeakBytes = Math.max(resources.heapPeakBytes, (long) heap);
+                resources.threadsPeak = Math.max(resources.threadsPeak, (int) threads);
+                resources.tomcatBusyPeak = Math.max(resources.tomcatBusyPeak, (int) busy);
+                resources.tempDirPeakBytes = Math.max(resources.tempDirPeakBytes, tempDirBytes);
+                Map<String, Object> sample = new LinkedHashMap<>();
+                sample.put("time", Instant.now().toString());
+                sample.put("rssBytes", rss);
+                sample.put("heapUsedBytes", (long) heap);
+                sample.put("liveThreads", (int) threads);
+                sample.put("tomcatBusyThreads", (int) busy);
+                sample.put("tempDirBytes", tempDirBytes);
+                resources.samples.add(sample);
+            }
+        } catch (Exception e) {
+            System.err.println("资源采样失败: " + e.getMessage());
+        }
+    }
+
+    private double metric(String name) throws Exception {
+        HttpResponse<String> response = httpClient.send(
+            HttpRequest.newBuilder(URI.create(managementUrl + "/metrics/" + name)).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return -1;
+        }
+        JsonNode measurements = objectMapper.readTree(response.body()).path("measurements");
+        return measurements.isEmpty() ? -1 : measurements.get(0).path("value").asDouble();
+    }
+
+    /**
+     * 读取 /proc/&lt;pid&gt;/status 中以 kB 为单位的内存项，进程已退出或非Linux时返回-1
+     */
+    private long procStatusBytes(String key) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(app.pid()), "status"))) {
+                if (line.startsWith(key + ":")) {
+                    return Long.parseLong(line.substring(key.length() + 1).replace("kB", "").trim()) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 忽略
+        }
+        return -1;
+    }
+
+    private static long directorySize(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.mapToLong(path -> {
+                try {
+                    return Files.isRegularFile(path) ? Files.size(path) : 0;
+                } catch (IOException e) {
+                    // 文件在遍历时被删除
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private void writeReport(List<Endpoint> endpoints, double elapsedSeconds) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("elapsedSeconds", Math.round(elapsedSeconds * 10) / 10.0);
+
+        LatencyStats total = new LatencyStats();
+        Map<String, Object> endpointReports = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            endpointReports.put(endpoint.path, endpoint.stats.toReport(elapsedSeconds));
+            total.merge(endpoint.stats);
+        }
+        report.put("total", total.toReport(elapsedSeconds));
+        report.put("endpoints", endpointReports);
+
+        Map<String, Object> resourceReport = new LinkedHashMap<>();
+        resourceReport.put("heapPeakBytes", resources.heapPeakBytes);
+        resourceReport.put("rssPeakBytes", resources.rssPeakBytes);
+        resourceReport.put("liveThreadsPeak", resources.threadsPeak);
+        resourceReport.put("tomcatBusyThreadsPeak", resources.tomcatBusyPeak);
+        Map<String, Object> tempDir = new LinkedHashMap<>();
+        tempDir.put("startBytes", resources.tempDirStartBytes);
+        tempDir.put("peakBytes", resources.tempDirPeakBytes);
+        tempDir.put("endBytes", resources.tempDirEndBytes);
+        resourceReport.put("tempDir", tempDir);
+        report.put("resources", resourceReport);
+        report.put("samples", resources.samples);
+
+        Path path = Paths.get(options.get("report"));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        objectMapper.writeValue(path.toFile(), report);
+
+        System.out.printf("%-30s %8s %8s %10s %10s %10s%n", "接口", "请求数", "失败数", "吞吐(/s)", "p50(ms)", "p99(ms)");
+        for (Endpoint endpoint : endpoints) {
+            endpoint.stats.print(endpoint.path, elapsedSeconds);
+        }
+        total.print("total", elapsedSeconds);
+        System.out.printf("堆峰值 %d MB，RSS峰值 %d MB，临时目录峰值 %d MB（结束时 %d MB）%n",
+            resources.heapPeakBytes >> 20, resources.rssPeakBytes >> 20,
+            resources.tempDirPeakBytes >> 20, resources.tempDirEndBytes >> 20);
+        System.out.println("报告: " + path.toAbsolutePath());
+    }
+
+    private List<Endpoint> parseMix(String mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            if (weight > 0) {
+                endpoints.add(new Endpoint(parts[0], weight));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("mix 中至少需要一个权重大于0的接口");
+        }
+        return endpoints;
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints) {
+        int totalWeight = endpoints.stream().mapToInt(endpoint -> endpoint.weight).sum();
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            value -= endpoint.weight;
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    /**
+     * 被测接口及其请求参数
+     */
+    private final class Endpoint {
+        final String path;
+        final int weight;
+        final Map<String, String> fields = new LinkedHashMap<>();
+        final LatencyStats stats = new LatencyStats();
+
+        Endpoint(String path, int weight) {
+            this.path = path;
+            this.weight = weight;
+            switch (path) {
+                case "info":
+                case "extract-frames-json-format":
+                    break;
+                case "extract-frames":
+                case "extract-frames-base64-only":
+                    fields.put("intervalSeconds", options.get("intervalSeconds"));
+                    break;
+                default:
+                    throw new IllegalArgumentException("不支持的接口: " + path);
+            }
+        }
+    }
+
+    private static final class Result {
+        final long latencyNanos;
+        final long bytes;
+        final boolean success;
+        final String error;
+
+        Result(long latencyNanos, long bytes, boolean success, String error) {
+            this.latencyNanos = latencyNanos;
+            this.bytes = bytes;
+            this.success = success;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 单个接口的请求统计，延迟包含失败的请求
+     */
+    private static final class LatencyStats {
+        private static final int MAX_ERROR_SAMPLES = 10;
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int failures;
+        private long bytes;
+        private final Map<String, Integer> errors = new LinkedHashMap<>();
+
+        synchronized void record(Result result) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = result.latencyNanos;
+            bytes += result.bytes;
+            if (!result.success) {
+                failures++;
+                if (errors.containsKey(result.error) || errors.size() < MAX_ERROR_SAMPLES) {
+                    errors.merge(result.error, 1, Integer::sum);
+                }
+            }
+        }
+
+        synchronized void merge(LatencyStats other) {
+            for (int i = 0; i < other.count; i++) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = other.latencies[i];
+            }
+            failures += other.failures;
+            bytes += other.bytes;
+            other.errors.forEach((error, n) -> errors.merge(error, n, Integer::sum));
+        }
+
+        private double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return Math.round(sorted[Math.max(0, index)] / 1e5) / 10.0;
+        }
+
+        synchronized Map<String, Object> toReport(double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", count);
+            report.put("failures", failures);
+            report.put("throughputPerSecond", Math.round(count / elapsedSeconds * 100) / 100.0);
+            report.put("responseBytes", bytes);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentileMillis(sorted, 50));
+            latency.put("p90", percentileMillis(sorted, 90));
+            latency.put("p99", percentileMillis(sorted, 99));
+            latency.put("max", percentileMillis(sorted, 100));
+            report.put("latencyMillis", latency);
+            report.put("errors", errors);
+            return report;
+        }
+
+        synchronized void print(String name, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("%-30s %8d %8d %10.2f %10.1f %10.1f%n", name, count, failures, count / elapsedSeconds,
+                percentileMillis(sorted, 50), percentileMillis(sorted, 99));
+        }
+    }
+
+    /**
+     * 服务进程资源占用的峰值与采样序列
+     */
+    private static final class ResourceStats {
+        long rssPeakBytes = -1;
+        long heapPeakBytes = -1;
+        int threadsPeak = -1;
+        int tomcatBusyPeak = -1;
+        long tempDirStartBytes;
+        long tempDirPeakBytes;
+        long tempDirEndBytes;
+        final List<Map<String, Object>> samples = new ArrayList<>();
+    }
+}
@@ -0,0 +1,123 @@
+package com.videoprocessor.benchmark;
+
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Java2DFrameConverter;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 基准测试使用的合成视频
+ * 用 FFmpegFrameRecorder 生成 480p、1080p、4K 三种分辨率的 MPEG-4 视频：10秒、25fps、每2秒一个关键帧，
+ * 画面为渐变背景上移动的色块与帧号，每帧内容不同，编码结果不会退化为纯色图片。
+ * 构建时（process-classes）生成到 target/clips，文件已存在时跳过；压力测试按需生成其他时长的视频。
+ */
+public final class SyntheticClips {
+
+    public static final int DURATION_SECONDS = 10;
+    public static final int FRAME_RATE = 25;
+    public static final int GOP_SIZE = 50;
+
+    private SyntheticClips() {}
+
+    /**
+     * 分辨率名称对应的宽高
+     */
+    public static int[] size(String resolution) {
+        switch (resolution) {
+            case "480p":
+                return new int[]{854, 480};
+            case "1080p":
+                return new int[]{1920, 1080};
+            case "4K":
+                return new int[]{3840, 2160};
+            default:
+                throw new IllegalArgumentException("未知的分辨率: " + resolution);
+        }
+    }
+
+    /**
+     * 测试视频文件，目录由系统属性 benchmark.clips.dir 指定
+     */
+    public static File clip(String resolution) {
+        File file = Paths.get(System.getProperty("benchmark.clips.dir", "target/clips"), "clip-" + resolution + ".mp4")
+            .toFile();
+        if (!file.isFile()) {
+            throw new IllegalStateException("测试视频不存在，请先执行 mvn package: " + file);
+        }
+        return file;
+    }
+
+    /**
+     * 生成指定分辨率与时长的测试视频，文件已存在时直接返回
+     * 默认时长的文件名为 clip-分辨率.mp4，其他时长为 clip-分辨率-秒数s.mp4
+     */
+    public static Path generate(Path dir, String resolution, int seconds) throws Exception {
+        String name = seconds == DURATION_SECONDS
+            ? "clip-" + resolution + ".mp4" : "clip-" + resolution + "-" + seconds + "s.mp4";
+        Path file = dir.resolve(name);
+        if (!Files.exists(file)) {
+            Files.createDirectories(dir);
+            avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+            int[] size = size(resolution);
+            System.out.println("生成测试视频: " + file);
+            record(file, size[0], size[1], seconds);
+        }
+        return file;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "target/clips");
+        for (String resolution : new String[]{"480p", "1080p", "4K"}) {
+            generate(dir, resolution, DURATION_SECONDS);
+        }
+    }
+
+    private static void record(Path file, int width, int height, int seconds) throws Exception {
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(partial.toFile(), width, height);
+             Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            recorder.setFormat("mp4");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG4);
+            recorder.setFrameRate(FRAME_RATE);
+            recorder.setGopSize(GOP_SIZE);
+            // 约 0.2 bit/像素/帧
+            recorder.setVideoBitrate((int) Math.min(Integer.MAX_VALUE, (long) width * height * FRAME_RATE / 5));
+            recorder.setVideoOption("sc_threshold", "1000000000");
+            recorder.start();
+
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+            Font font = new Font(Font.MONOSPACED, Font.BOLD, height / 8);
+            int frames = seconds * FRAME_RATE;
+            for (int i = 0; i < frames; i++) {
+                Graphics2D graphics = image.createGraphics();
+                float phase = (float) i / frames;
+                graphics.setPaint(new GradientPaint(0, 0, Color.getHSBColor(phase, 0.6f, 0.9f),
+                    width, height, Color.getHSBColor(phase + 0.5f, 0.6f, 0.3f)));
+                graphics.fillRect(0, 0, width, height);
+                for (int block = 0; block < 12; block++) {
+                    int x = (int) ((block * 0.37 + phase * (block + 1)) % 1.0 * width);
+                    int y = (int) ((block * 0.61 + phase * 0.5) % 1.0 * height);
+                    graphics.setColor(Color.getHSBColor(block / 12f, 0.8f, 0.8f));
+                    graphics.fillOval(x, y, width / 10, height / 10);
+                }
+                graphics.setColor(Color.WHITE);
+                graphics.setFont(font);
+                graphics.drawString(String.format("%04d", i), width / 20, height / 2);
+                graphics.dispose();
+                recorder.record(converter.convert(image));
+            }
+            recorder.stop();
+        }
+        Files.move(partial, file);
+    }
+}
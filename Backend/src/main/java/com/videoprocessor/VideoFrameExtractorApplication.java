@@ -2,12 +2,14 @@ package com.videoprocessor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 视频帧提取应用程序主类
  * 提供视频转换为图片帧并输出base64编码的功能
  */
 @SpringBootApplication
+@EnableScheduling
 public class VideoFrameExtractorApplication {
 
     public static void main(String[] args) {
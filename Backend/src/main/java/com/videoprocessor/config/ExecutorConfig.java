@@ -0,0 +1,83 @@
+package com.videoprocessor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池配置类
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 分段解码线程池，所有请求共享，线程数由 thread-pool-size 限定
+     */
+    @Bean(name = "segmentExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService segmentExecutor(
+            @Value("${video.processor.performance.thread-pool-size:4}") int threadPoolSize) {
+        return Executors.newFixedThreadPool(Math.max(1, threadPoolSize), namedThreadFactory("video-segment-"));
+    }
+
+    /**
+     * 帧编码线程池，负责图像转换与编码，与解码线程解耦
+     */
+    @Bean(name = "encodeExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService encodeExecutor(
+            @Value("${video.processor.performance.encode-threads:0}") int encodeThreads) {
+        int threads = encodeThreads > 0 ? encodeThreads : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, namedThreadFactory("video-encode-"));
+    }
+
+    /**
+     * 批量提取线程池，多个视频共享，每个线程解码一个视频，调度顺序由 BatchExtractionService 控制
+     */
+    @Bean(name = "batchExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService batchExecutor(
+            @Value("${video.processor.batch.max-concurrent:0}") int maxConcurrent) {
+        int threads = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, namedThreadFactory("video-batch-"));
+    }
+
+    /**
+     * 帧输出线程池，负责将编码后的帧写入磁盘或对象存储，与解码、编码线程解耦
+     */
+    @Bean(name = "sinkExecutor", destroyMethod = "shutdown")
+    public ExecutorService sinkExecutor(
+            @Value("${video.processor.output.writer-threads:2}") int writerThreads) {
+        return Executors.newFixedThreadPool(Math.max(1, writerThreads), namedThreadFactory("video-sink-"));
+    }
+
+    /**
+     * 异步提取任务线程池，线程数与排队数量均有上限，队列满时拒绝提交
+     */
+    @Bean(name = "jobExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService jobExecutor(
+            @Value("${video.processor.jobs.max-concurrent:4}") int maxConcurrent,
+            @Value("${video.processor.jobs.queue-capacity:50}") int queueCapacity) {
+        int threads = Math.max(1, maxConcurrent);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), namedThreadFactory("video-job-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 创建带名称前缀的守护线程工厂
+     */
+    static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,18 +1,23 @@
 package com.videoprocessor.config;
 
+import com.videoprocessor.service.AdmissionRejectedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 全局异常处理器
@@ -36,7 +41,8 @@ public class GlobalExceptionHandler {
             errors.put(fieldName, errorMessage);
         });
         
-        return ResponseEntity.badRequest().body(createErrorResponse("参数验证失败", errors));
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .body(createErrorResponse("参数验证失败", errors));
     }
 
     /**
@@ -53,7 +59,17 @@ public class GlobalExceptionHandler {
             errors.put(fieldName, errorMessage);
         });
         
-        return ResponseEntity.badRequest().body(createErrorResponse("参数绑定失败", errors));
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .body(createErrorResponse("参数绑定失败", errors));
+    }
+
+    /**
+     * 处理请求参数类型不匹配异常（例如不支持的提取模式）
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<?> handleTypeMismatchException(MethodArgumentTypeMismatchException e) {
+        logger.error("参数类型错误: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(createErrorResponse("参数错误: " + e.getName() + " 的值无效"));
     }
 
     /**
@@ -66,13 +82,40 @@ public class GlobalExceptionHandler {
             .body(createErrorResponse("上传文件大小超过限制，请上传小于500MB的文件"));
     }
 
+    /**
+     * 处理任务队列已满异常
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleRejectedExecutionException(RejectedExecutionException e) {
+        logger.warn("任务队列已满: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, "30")
+            .body(createErrorResponse("任务队列已满，请稍后重试"));
+    }
+
+    /**
+     * 处理提取请求因预算不足被拒绝的异常（流式与二进制接口在响应提交前完成准入）
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<?> handleAdmissionRejectedException(AdmissionRejectedException e) {
+        logger.warn("提取请求被拒绝: {}", e.getMessage());
+        Map<String, Object> response = createErrorResponse(e.getMessage());
+        response.put("retryAfterSeconds", e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(response);
+    }
+
     /**
      * 处理IllegalArgumentException
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException e) {
         logger.error("非法参数异常: {}", e.getMessage());
-        return ResponseEntity.badRequest().body(createErrorResponse("参数错误: " + e.getMessage()));
+        // 流式与二进制接口的 Accept 不包含JSON，显式指定类型以免内容协商失败
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+            .body(createErrorResponse("参数错误: " + e.getMessage()));
     }
 
     /**
@@ -1,14 +1,22 @@
 package com.videoprocessor.config;
 
+import com.videoprocessor.model.FrameExtractionRequest;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Web配置类
@@ -16,6 +24,25 @@ import java.util.Arrays;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // 由 MultipartStreamReader 直接解析请求体的接口（相对 context-path）
+    private static final Set<String> STREAMING_UPLOAD_PATHS = Set.of(
+            "/video/info",
+            "/video/extract-frames/stream-upload");
+
+    /**
+     * multipart解析器：流式上传接口不经过解析，请求体留给 MultipartStreamReader 读取；
+     * 其他接口仍在进入控制器之前解析完整个请求
+     */
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return !STREAMING_UPLOAD_PATHS.contains(request.getServletPath()) && super.isMultipart(request);
+            }
+        };
+    }
+
     /**
      * 配置CORS跨域
      */
@@ -43,6 +70,21 @@ public class WebConfig implements WebMvcConfigurer {
                 .maxAge(3600);
     }
 
+    /**
+     * 表单参数中的提取模式、像素格式、去重方式与输出位置不区分大小写，空值视为未设置
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, FrameExtractionRequest.Mode.class,
+                value -> value.isBlank() ? null : FrameExtractionRequest.Mode.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        registry.addConverter(String.class, FrameExtractionRequest.PixelFormat.class,
+                value -> value.isBlank() ? null : FrameExtractionRequest.PixelFormat.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        registry.addConverter(String.class, FrameExtractionRequest.Dedup.class,
+                value -> value.isBlank() ? null : FrameExtractionRequest.Dedup.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+        registry.addConverter(String.class, FrameExtractionRequest.Sink.class,
+                value -> value.isBlank() ? null : FrameExtractionRequest.Sink.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+    }
+
     /**
      * CORS配置源
      */
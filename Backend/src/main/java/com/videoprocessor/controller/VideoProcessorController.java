@@ -1,20 +1,55 @@
 package com.videoprocessor.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.videoprocessor.model.BatchClipResult;
+import com.videoprocessor.model.ExtractionJob;
 import com.videoprocessor.model.FrameExtractionRequest;
 import com.videoprocessor.model.FrameExtractionResponse;
+import com.videoprocessor.model.SpriteSheetResponse;
 import com.videoprocessor.model.VideoInfo;
+import com.videoprocessor.service.AdmissionController;
+import com.videoprocessor.service.BatchExtractionService;
+import com.videoprocessor.service.BinaryFrameWriter;
+import com.videoprocessor.service.ExtractionJobService;
+import com.videoprocessor.service.FrameCache;
+import com.videoprocessor.service.FrameStorage;
+import com.videoprocessor.service.ImageEncoder;
+import com.videoprocessor.service.MultipartStreamReader;
+import com.videoprocessor.service.PreparedExtraction;
+import com.videoprocessor.service.StreamingUpload;
 import com.videoprocessor.service.VideoProcessorService;
+import com.videoprocessor.service.VideoSource;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * 视频处理REST API控制器
@@ -26,24 +61,88 @@ public class VideoProcessorController {
 
     private static final Logger logger = LoggerFactory.getLogger(VideoProcessorController.class);
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String[] INTERNAL_REQUEST_FIELDS = {"videoFileName", "binaryOutput", "spriteColumns", "spriteRows"};
+
     @Autowired
     private VideoProcessorService videoProcessorService;
 
+    @Autowired
+    private ExtractionJobService extractionJobService;
+
+    @Autowired
+    private BatchExtractionService batchExtractionService;
+
+    @Autowired
+    private MultipartStreamReader multipartStreamReader;
+
+    @Autowired
+    private FrameCache frameCache;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private FrameStorage frameStorage;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConversionService mvcConversionService;
+
+    /**
+     * 表单提取参数绑定到 FrameExtractionRequest，视频名称、二进制输出与雪碧图行列由接口设置，不接受请求参数
+     */
+    @InitBinder("frameExtractionRequest")
+    public void initExtractionRequestBinder(WebDataBinder binder) {
+        binder.setDisallowedFields(INTERNAL_REQUEST_FIELDS);
+    }
+
     /**
      * 获取视频信息
+     * 上传的视频只读取容器头部，得到信息后不再接收剩余内容；cache=true 时上传整个文件放入缓存并返回 videoId。
+     * videoId、cache 可作为查询参数，或作为位于 file 之前的表单字段
      */
     @PostMapping("/info")
-    public ResponseEntity<?> getVideoInfo(@RequestParam("file") MultipartFile videoFile) {
+    public ResponseEntity<?> getVideoInfo(HttpServletRequest httpRequest) {
         try {
-            logger.info("接收到获取视频信息请求: {}", videoFile.getOriginalFilename());
-            
-            if (videoFile.isEmpty()) {
-                return ResponseEntity.badRequest().body(createErrorResponse("视频文件不能为空"));
+            VideoInfo videoInfo;
+            if (isMultipartRequest(httpRequest)) {
+                StreamingUpload upload = multipartStreamReader.readOptional(httpRequest, "file");
+                String videoId = upload.getField("videoId") != null ? upload.getField("videoId")
+                    : getQueryParameter(httpRequest, "videoId");
+                String cache = upload.getField("cache") != null ? upload.getField("cache")
+                    : getQueryParameter(httpRequest, "cache");
+                logger.info("接收到获取视频信息请求: {}", upload.getFileName() != null ? upload.getFileName() : videoId);
+                
+                if (upload.getContent() == null || videoId != null) {
+                    String videoError = validateVideo(null, videoId);
+                    if (videoError != null) {
+                        return ResponseEntity.badRequest().body(createErrorResponse(videoError));
+                    }
+                    videoInfo = videoProcessorService.getVideoInfo(null, videoId);
+                } else {
+                    if (!videoProcessorService.isValidVideoFormat(upload.getFileName())) {
+                        return ResponseEntity.badRequest().body(createErrorResponse("不支持的视频格式"));
+                    }
+                    videoInfo = videoProcessorService.getVideoInfo(upload, Boolean.parseBoolean(cache));
+                }
+            } else {
+                String videoId = httpRequest.getParameter("videoId");
+                logger.info("接收到获取视频信息请求: {}", videoId);
+                
+                String videoError = validateVideo(null, videoId);
+                if (videoError != null) {
+                    return ResponseEntity.badRequest().body(createErrorResponse(videoError));
+                }
+                videoInfo = videoProcessorService.getVideoInfo(null, videoId);
             }
-            
-            VideoInfo videoInfo = videoProcessorService.getVideoInfo(videoFile);
             return ResponseEntity.ok(createSuccessResponse("获取视频信息成功", videoInfo));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
         } catch (Exception e) {
             logger.error("获取视频信息失败: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -56,43 +155,24 @@ public class VideoProcessorController {
      */
     @PostMapping("/extract-frames")
     public ResponseEntity<?> extractFrames(
-            @RequestParam("file") MultipartFile videoFile,
-            @RequestParam(value = "intervalSeconds", required = false) Integer intervalSeconds,
-            @RequestParam(value = "startTimeSeconds", defaultValue = "0") Integer startTimeSeconds,
-            @RequestParam(value = "endTimeSeconds", required = false) Integer endTimeSeconds,
-            @RequestParam(value = "outputFormat", defaultValue = "jpg") String outputFormat,
-            @RequestParam(value = "imageQuality", defaultValue = "85") Integer imageQuality,
-            @RequestParam(value = "returnBase64", defaultValue = "true") Boolean returnBase64) {
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
+            @ModelAttribute FrameExtractionRequest request) {
         
         try {
-            logger.info("接收到提取视频帧请求: {}", videoFile.getOriginalFilename());
-            
-            if (videoFile.isEmpty()) {
-                return ResponseEntity.badRequest().body(createErrorResponse("视频文件不能为空"));
-            }
-            
-            // 构建请求对象
-            FrameExtractionRequest request = new FrameExtractionRequest();
-            request.setVideoFileName(videoFile.getOriginalFilename());
-            request.setIntervalSeconds(intervalSeconds);
-            request.setStartTimeSeconds(startTimeSeconds);
-            request.setEndTimeSeconds(endTimeSeconds);
-            request.setOutputFormat(outputFormat);
-            request.setImageQuality(imageQuality);
-            request.setReturnBase64(returnBase64);
+            logger.info("接收到提取视频帧请求: {}", getVideoName(videoFile, videoId));
             
-            // 验证参数
-            String validationError = validateRequest(request);
+            String validationError = prepareRequest(videoFile, videoId, request);
             if (validationError != null) {
                 return ResponseEntity.badRequest().body(createErrorResponse(validationError));
             }
             
-            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, request);
+            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, videoId, request);
             
             if (response.isSuccess()) {
                 return ResponseEntity.ok(response);
             } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                return createFailureResponse(response);
             }
             
         } catch (Exception e) {
@@ -102,29 +182,296 @@ public class VideoProcessorController {
         }
     }
 
+    /**
+     * 提取视频帧并以二进制格式返回
+     * 参数与 /extract-frames 相同（不支持 returnBase64），Accept 为 multipart/mixed 或 application/zip 时使用；
+     * 编码后的图片直接写入响应输出流，不经过base64与JSON，帧在编码完成后立即输出
+     */
+    @PostMapping(value = "/extract-frames", produces = {"multipart/mixed", "application/zip"})
+    public ResponseEntity<StreamingResponseBody> extractFramesBinary(
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
+            @ModelAttribute FrameExtractionRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        
+        logger.info("接收到二进制提取视频帧请求: {}", getVideoName(videoFile, videoId));
+        
+        // 图片随响应以二进制返回
+        request.setReturnBase64(true);
+        request.setBinaryOutput(true);
+        request.setSink(FrameExtractionRequest.Sink.INLINE);
+        
+        String validationError = prepareRequest(videoFile, videoId, request);
+        if (validationError != null) {
+            throw new IllegalArgumentException(validationError);
+        }
+        
+        boolean zip = accept != null && accept.contains("application/zip");
+        BinaryFrameWriter writer = new BinaryFrameWriter(
+            zip ? BinaryFrameWriter.Format.ZIP : BinaryFrameWriter.Format.MULTIPART, request.getOutputFormat());
+        
+        // 响应提交前探测视频并完成准入，预算不足时返回503
+        PreparedExtraction prepared = videoProcessorService.prepareStream(videoFile, videoId, request, false);
+        
+        StreamingResponseBody body = outputStream -> {
+            FrameExtractionResponse response;
+            try {
+                writer.start(outputStream);
+                response = videoProcessorService.streamFrames(prepared, frameData -> {
+                    try {
+                        writer.writeFrame(frameData);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                prepared.close();
+            }
+            
+            Map<String, Object> summary = createStreamSummary(response);
+            if (zip) {
+                summary.put("frames", writer.getWrittenFrames());
+            }
+            writer.finish(objectMapper.writeValueAsBytes(summary));
+        };
+        
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(writer.getContentType()));
+        if (zip) {
+            builder.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"frames.zip\"");
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * 流式提取视频帧
+     * 每帧编码完成后立即输出一条记录，最后输出一条汇总记录（视频信息、提取帧数、处理耗时）。
+     * 默认输出NDJSON（application/x-ndjson），Accept 为 text/event-stream 时输出SSE事件。
+     */
+    @PostMapping("/extract-frames/stream")
+    public ResponseEntity<StreamingResponseBody> extractFramesStream(
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
+            @ModelAttribute FrameExtractionRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        
+        logger.info("接收到流式提取视频帧请求: {}", getVideoName(videoFile, videoId));
+        
+        String validationError = prepareRequest(videoFile, videoId, request);
+        if (validationError != null) {
+            throw new IllegalArgumentException(validationError);
+        }
+        
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        
+        // 响应提交前探测视频并完成准入，预算不足时返回503
+        PreparedExtraction prepared = videoProcessorService.prepareStream(videoFile, videoId, request, false);
+        
+        return createFrameStream(sse, frameConsumer -> videoProcessorService.streamFrames(prepared, frameConsumer));
+    }
+
+    /**
+     * 边上传边提取视频帧
+     * 直接解析请求体，不等待整个文件上传完成；表单参数必须位于 file 部分之前。
+     * 输出格式与 /extract-frames/stream 相同。
+     */
+    @PostMapping("/extract-frames/stream-upload")
+    public ResponseEntity<StreamingResponseBody> extractFramesStreamUpload(
+            HttpServletRequest httpRequest,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        
+        StreamingUpload upload = multipartStreamReader.read(httpRequest, "file");
+        logger.info("接收到边上传边提取视频帧请求: {}", upload.getFileName());
+        
+        // 表单字段按与其他提取接口相同的规则绑定到请求对象
+        FrameExtractionRequest request = bindUploadFields(upload);
+        request.setVideoFileName(upload.getFileName());
+        
+        // 验证参数
+        String validationError = validateRequest(request);
+        if (validationError == null && !videoProcessorService.isValidVideoFormat(upload.getFileName())) {
+            validationError = "不支持的视频格式";
+        }
+        if (validationError != null) {
+            throw new IllegalArgumentException(validationError);
+        }
+        
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        
+        VideoSource source;
+        try {
+            source = videoProcessorService.openStreamingUpload(upload);
+        } catch (IOException e) {
+            logger.error("读取上传视频失败: {}", e.getMessage(), e);
+            FrameExtractionResponse failure = new FrameExtractionResponse(false, "读取上传视频失败: " + e.getMessage());
+            return createFrameStream(sse, frameConsumer -> failure);
+        }
+        
+        // 响应提交前探测视频并完成准入，预算不足时返回503；视频源随提取结束关闭
+        PreparedExtraction prepared = videoProcessorService.prepareStream(source, request);
+        
+        return createFrameStream(sse, frameConsumer -> videoProcessorService.streamFrames(prepared, frameConsumer));
+    }
+
+    /**
+     * 批量提取多个视频的帧
+     * 可上传多个 file，和/或提供多个已缓存的 videoId；requests 为JSON数组，按视频顺序（先 file 后 videoId）
+     * 给出各自的提取参数，只有一个元素时用于所有视频，省略时使用默认参数。结果按视频顺序汇总返回。
+     */
+    @PostMapping("/extract-frames/batch")
+    public ResponseEntity<?> extractFramesBatch(
+            @RequestParam(value = "file", required = false) List<MultipartFile> videoFiles,
+            @RequestParam(value = "videoId", required = false) List<String> videoIds,
+            @RequestPart(value = "requests", required = false) List<FrameExtractionRequest> requests)
+            throws InterruptedException {
+        
+        List<BatchExtractionService.Clip> clips;
+        try {
+            clips = createBatchClips(videoFiles, videoIds, requests);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+        
+        long startTime = System.currentTimeMillis();
+        List<BatchClipResult> results = batchExtractionService.extract(clips, true,
+            new BatchExtractionService.BatchListener() { });
+        
+        Map<String, Object> response = createBatchSummary(results, startTime);
+        response.put("clips", results);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 流式批量提取多个视频的帧
+     * 参数与 /extract-frames/batch 相同，Accept 为 application/x-ndjson 或 text/event-stream 时使用；
+     * 各视频的帧按完成顺序交错输出（记录带 clipIndex），每个视频结束时输出一条 clip 记录，最后输出汇总记录
+     */
+    @PostMapping(value = "/extract-frames/batch", produces = {"application/x-ndjson", MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> extractFramesBatchStream(
+            @RequestParam(value = "file", required = false) List<MultipartFile> videoFiles,
+            @RequestParam(value = "videoId", required = false) List<String> videoIds,
+            @RequestPart(value = "requests", required = false) List<FrameExtractionRequest> requests,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        
+        List<BatchExtractionService.Clip> clips = createBatchClips(videoFiles, videoIds, requests);
+        boolean sse = accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        
+        // 响应提交前为第一个视频完成准入，预算不足时返回503；其余视频的失败在各自的 clip 记录中返回
+        BatchExtractionService.Clip first = clips.get(0);
+        PreparedExtraction prepared = videoProcessorService.prepareStream(first.getVideoFile(), first.getVideoId(),
+            first.getRequest(), false);
+        clips.set(0, new BatchExtractionService.Clip(first.getVideoFile(), first.getVideoId(), first.getRequest(),
+            prepared));
+        
+        StreamingResponseBody body = outputStream -> {
+            long startTime = System.currentTimeMillis();
+            List<BatchClipResult> results;
+            try {
+                // 多个解码线程并发回调，写出时按输出流加锁
+                results = batchExtractionService.extract(clips, false, new BatchExtractionService.BatchListener() {
+                    @Override
+                    public void onFrame(int clipIndex, FrameExtractionResponse.FrameData frameData) {
+                        ObjectNode record = objectMapper.valueToTree(frameData);
+                        record.put("type", "frame");
+                        record.put("clipIndex", clipIndex);
+                        writeBatchRecord(outputStream, sse, "frame", record);
+                    }
+
+                    @Override
+                    public void onClipFinished(BatchClipResult result) {
+                        ObjectNode record = objectMapper.valueToTree(result);
+                        record.remove("frames");
+                        record.put("type", "clip");
+                        writeBatchRecord(outputStream, sse, "clip", record);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            Map<String, Object> summary = createBatchSummary(results, startTime);
+            summary.put("type", "summary");
+            writeBatchRecord(outputStream, sse, "summary", summary);
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON)
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .body(body);
+    }
+
+    /**
+     * 提取雪碧图（缩略图拼图）与WebVTT缩略图轨道
+     * 帧按间隔（或关键帧、场景变化模式）提取并缩小为 tileWidth 宽的缩略图，按行优先排列为 columns x rows 的拼图，
+     * 每张拼图只编码一次；webVtt 中每个时间段对应拼图中的一个 #xywh 区域，用于播放器拖动进度条时的预览
+     */
+    @PostMapping("/extract-frames/sprite")
+    public ResponseEntity<?> extractSpriteSheets(
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
+            @ModelAttribute FrameExtractionRequest request,
+            @RequestParam(value = "columns", defaultValue = "10") Integer columns,
+            @RequestParam(value = "rows", defaultValue = "10") Integer rows,
+            @RequestParam(value = "tileWidth", defaultValue = "160") Integer tileWidth,
+            @RequestParam(value = "tileHeight", required = false) Integer tileHeight) {
+
+        try {
+            logger.info("接收到提取雪碧图请求: {}", getVideoName(videoFile, videoId));
+
+            // 默认每10秒一张缩略图，缩略图尺寸即输出的最大宽高
+            if (request.getIntervalSeconds() == null) {
+                request.setIntervalSeconds(10);
+            }
+            request.setReturnBase64(true);
+            request.setMaxWidth(tileWidth);
+            request.setMaxHeight(tileHeight);
+            request.setSpriteColumns(columns);
+            request.setSpriteRows(rows);
+
+            String validationError = prepareRequest(videoFile, videoId, request);
+            if (validationError != null) {
+                return ResponseEntity.badRequest().body(createErrorResponse(validationError));
+            }
+
+            SpriteSheetResponse response = videoProcessorService.extractSpriteSheets(videoFile, videoId, request);
+
+            if (response.isSuccess()) {
+                return ResponseEntity.ok(response);
+            } else {
+                return createFailureResponse(response);
+            }
+
+        } catch (Exception e) {
+            logger.error("提取雪碧图失败: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(createErrorResponse("提取雪碧图失败: " + e.getMessage()));
+        }
+    }
+
     /**
      * 提取视频帧（支持JSON请求体）
      */
     @PostMapping("/extract-frames-json")
     public ResponseEntity<?> extractFramesWithJson(
-            @RequestParam("file") MultipartFile videoFile,
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
             @Valid @RequestPart("request") FrameExtractionRequest request) {
         
         try {
-            logger.info("接收到JSON格式的提取视频帧请求: {}", videoFile.getOriginalFilename());
+            logger.info("接收到JSON格式的提取视频帧请求: {}", getVideoName(videoFile, videoId));
             
-            if (videoFile.isEmpty()) {
-                return ResponseEntity.badRequest().body(createErrorResponse("视频文件不能为空"));
+            String validationError = prepareRequest(videoFile, videoId, request);
+            if (validationError != null) {
+                return ResponseEntity.badRequest().body(createErrorResponse(validationError));
             }
             
-            request.setVideoFileName(videoFile.getOriginalFilename());
-            
-            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, request);
+            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, videoId, request);
             
             if (response.isSuccess()) {
                 return ResponseEntity.ok(response);
             } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                return createFailureResponse(response);
             }
             
         } catch (Exception e) {
@@ -134,6 +481,79 @@ public class VideoProcessorController {
         }
     }
 
+    /**
+     * 提交异步提取任务，立即返回任务ID
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
+            @ModelAttribute FrameExtractionRequest request) throws Exception {
+        
+        logger.info("接收到异步提取任务请求: {}", getVideoName(videoFile, videoId));
+        
+        String validationError = prepareRequest(videoFile, videoId, request);
+        if (validationError != null) {
+            return ResponseEntity.badRequest().body(createErrorResponse(validationError));
+        }
+        
+        // 队列已满时抛出 RejectedExecutionException，由全局异常处理器返回429
+        ExtractionJob job = extractionJobService.submit(videoFile, videoId, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(createSuccessResponse("任务已提交", job));
+    }
+
+    /**
+     * 查询异步任务进度
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable("jobId") String jobId) {
+        ExtractionJob job = extractionJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("任务不存在或已过期"));
+        }
+        return ResponseEntity.ok(createSuccessResponse("获取任务状态成功", job));
+    }
+
+    /**
+     * 获取异步任务结果，任务未完成时返回202及当前状态
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable("jobId") String jobId) {
+        ExtractionJob job = extractionJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("任务不存在或已过期"));
+        }
+        
+        switch (job.getStatus()) {
+            case COMPLETED:
+                FrameExtractionResponse result = extractionJobService.getResult(jobId);
+                if (result == null) {
+                    // 查询状态之后结果被清除
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("任务不存在或已过期"));
+                }
+                return ResponseEntity.ok(result);
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse(job.getMessage()));
+            case CANCELLED:
+                return ResponseEntity.status(HttpStatus.GONE).body(createErrorResponse("任务已取消"));
+            default:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(createSuccessResponse("任务尚未完成", job));
+        }
+    }
+
+    /**
+     * 取消异步任务
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<?> cancelJob(@PathVariable("jobId") String jobId) {
+        ExtractionJob job = extractionJobService.cancel(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("任务不存在或已过期"));
+        }
+        return ResponseEntity.ok(createSuccessResponse("任务取消请求已处理", job));
+    }
+
     /**
      * 健康检查接口
      */
@@ -146,42 +566,43 @@ public class VideoProcessorController {
         return ResponseEntity.ok(health);
     }
 
+    /**
+     * 帧缓存统计（命中率、占用字节数等）
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(createSuccessResponse("获取缓存统计成功", frameCache.getStats()));
+    }
+
+    /**
+     * 准入控制的预算占用（CPU槽位、内存、排队数等），供监控与扩缩容参考
+     */
+    @GetMapping("/admission/stats")
+    public ResponseEntity<?> getAdmissionStats() {
+        return ResponseEntity.ok(createSuccessResponse("获取准入控制统计成功", admissionController.getStats()));
+    }
+
     /**
      * 提取视频帧并只返回base64编码列表
      */
     @PostMapping("/extract-frames-base64-only")
     public ResponseEntity<?> extractFramesBase64Only(
-            @RequestParam("file") MultipartFile videoFile,
-            @RequestParam(value = "intervalSeconds", required = false) Integer intervalSeconds,
-            @RequestParam(value = "startTimeSeconds", defaultValue = "0") Integer startTimeSeconds,
-            @RequestParam(value = "endTimeSeconds", required = false) Integer endTimeSeconds,
-            @RequestParam(value = "outputFormat", defaultValue = "jpg") String outputFormat,
-            @RequestParam(value = "imageQuality", defaultValue = "85") Integer imageQuality) {
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
+            @ModelAttribute FrameExtractionRequest request) {
         
         try {
-            logger.info("接收到提取视频帧Base64请求: {}", videoFile.getOriginalFilename());
+            logger.info("接收到提取视频帧Base64请求: {}", getVideoName(videoFile, videoId));
             
-            if (videoFile.isEmpty()) {
-                return ResponseEntity.badRequest().body(createErrorResponse("视频文件不能为空"));
-            }
-            
-            // 构建请求对象
-            FrameExtractionRequest request = new FrameExtractionRequest();
-            request.setVideoFileName(videoFile.getOriginalFilename());
-            request.setIntervalSeconds(intervalSeconds);
-            request.setStartTimeSeconds(startTimeSeconds);
-            request.setEndTimeSeconds(endTimeSeconds);
-            request.setOutputFormat(outputFormat);
-            request.setImageQuality(imageQuality);
             request.setReturnBase64(true); // 强制返回base64
+            request.setSink(FrameExtractionRequest.Sink.INLINE);
             
-            // 验证参数
-            String validationError = validateRequest(request);
+            String validationError = prepareRequest(videoFile, videoId, request);
             if (validationError != null) {
                 return ResponseEntity.badRequest().body(createErrorResponse(validationError));
             }
             
-            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, request);
+            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, videoId, request);
             
             if (response.isSuccess()) {
                 // 只返回base64编码列表
@@ -199,7 +620,7 @@ public class VideoProcessorController {
                 
                 return ResponseEntity.ok(result);
             } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                return createFailureResponse(response);
             }
             
         } catch (Exception e) {
@@ -214,26 +635,28 @@ public class VideoProcessorController {
      */
     @PostMapping("/extract-frames-json-format")
     public ResponseEntity<?> extractFramesJsonFormat(
-            @RequestParam("file") MultipartFile videoFile,
+            @RequestParam(value = "file", required = false) MultipartFile videoFile,
+            @RequestParam(value = "videoId", required = false) String videoId,
             @RequestParam(value = "promptText", defaultValue = "请描述这些图片的内容") String promptText) {
         
         try {
-            logger.info("接收到生成JSON格式请求: {}", videoFile.getOriginalFilename());
+            logger.info("接收到生成JSON格式请求: {}", getVideoName(videoFile, videoId));
             
-            if (videoFile.isEmpty()) {
-                return ResponseEntity.badRequest().body(createErrorResponse("视频文件不能为空"));
+            String videoError = validateVideo(videoFile, videoId);
+            if (videoError != null) {
+                return ResponseEntity.badRequest().body(createErrorResponse(videoError));
             }
             
             // 构建请求对象 - 默认每秒一帧
             FrameExtractionRequest request = new FrameExtractionRequest();
-            request.setVideoFileName(videoFile.getOriginalFilename());
+            request.setVideoFileName(getVideoName(videoFile, videoId));
             request.setIntervalSeconds(1); // 每秒一帧
             request.setStartTimeSeconds(0);
             request.setOutputFormat("jpg");
             request.setImageQuality(85);
             request.setReturnBase64(true);
             
-            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, request);
+            FrameExtractionResponse response = videoProcessorService.extractFrames(videoFile, videoId, request);
             
             if (response.isSuccess()) {
                 // 构建特定格式的JSON
@@ -268,7 +691,7 @@ public class VideoProcessorController {
                 
                 return ResponseEntity.ok(result);
             } else {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                return createFailureResponse(response);
             }
             
         } catch (Exception e) {
@@ -285,10 +708,78 @@ public class VideoProcessorController {
     public ResponseEntity<?> getSupportedFormats() {
         Map<String, Object> formats = new HashMap<>();
         formats.put("videoFormats", new String[]{"mp4", "avi", "mov", "mkv", "wmv", "flv", "webm"});
-        formats.put("imageFormats", new String[]{"jpg", "jpeg", "png", "bmp"});
+        formats.put("imageFormats", ImageEncoder.SUPPORTED_FORMATS);
         return ResponseEntity.ok(createSuccessResponse("获取支持格式成功", formats));
     }
 
+    /**
+     * 验证视频来源：必须上传视频文件或提供已缓存的 videoId
+     */
+    private String validateVideo(MultipartFile videoFile, String videoId) {
+        if (videoId != null) {
+            return videoProcessorService.isCachedVideo(videoId) ? null : "视频不存在或已过期，请重新上传";
+        }
+        if (videoFile == null || videoFile.isEmpty()) {
+            return "视频文件不能为空";
+        }
+        return null;
+    }
+
+    /**
+     * 是否为multipart请求
+     */
+    private boolean isMultipartRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    /**
+     * 读取查询参数，不会触发multipart请求体的解析
+     */
+    private String getQueryParameter(HttpServletRequest request, String name) {
+        if (request.getQueryString() == null) {
+            return null;
+        }
+        String value = UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+            .getQueryParams().getFirst(name);
+        return value != null ? UriUtils.decode(value, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * 用于日志与请求参数的视频名称
+     */
+    private String getVideoName(MultipartFile videoFile, String videoId) {
+        return videoFile != null ? videoFile.getOriginalFilename() : videoId;
+    }
+
+    /**
+     * 验证视频来源与提取参数并设置视频名称，返回第一个错误信息，全部通过时返回null
+     */
+    private String prepareRequest(MultipartFile videoFile, String videoId, FrameExtractionRequest request) {
+        String videoError = validateVideo(videoFile, videoId);
+        if (videoError != null) {
+            return videoError;
+        }
+        request.setVideoFileName(getVideoName(videoFile, videoId));
+        return validateRequest(request);
+    }
+
+    /**
+     * 把边上传边提取的表单字段绑定到请求对象，规则与其他提取接口的 @ModelAttribute 绑定相同
+     */
+    private FrameExtractionRequest bindUploadFields(StreamingUpload upload) {
+        FrameExtractionRequest request = new FrameExtractionRequest();
+        WebDataBinder binder = new WebDataBinder(request, "frameExtractionRequest");
+        binder.setConversionService(mvcConversionService);
+        initExtractionRequestBinder(binder);
+        binder.bind(new MutablePropertyValues(upload.getFields()));
+        FieldError error = binder.getBindingResult().getFieldError();
+        if (error != null) {
+            throw new IllegalArgumentException(error.getField() + " 的值无效");
+        }
+        return request;
+    }
+
     /**
      * 验证请求参数
      */
@@ -311,9 +802,214 @@ public class VideoProcessorController {
             return "图片质量必须在1-100之间";
         }
         
+        if (request.getOutputFormat() != null && !ImageEncoder.isSupportedFormat(request.getOutputFormat())) {
+            return "不支持的图片格式: " + request.getOutputFormat();
+        }
+        
+        if (request.getMaxWidth() != null && request.getMaxWidth() <= 0) {
+            return "最大宽度必须大于0";
+        }
+        
+        if (request.getMaxHeight() != null && request.getMaxHeight() <= 0) {
+            return "最大高度必须大于0";
+        }
+        
+        if (request.getSceneThreshold() <= 0 || request.getSceneThreshold() > 1) {
+            return "场景变化阈值必须在0-1之间";
+        }
+        
+        if (request.getMinSceneIntervalSeconds() != null && request.getMinSceneIntervalSeconds() < 0) {
+            return "场景最小间隔不能为负数";
+        }
+        
+        if (request.getMaxSceneIntervalSeconds() != null && request.getMaxSceneIntervalSeconds() <= 0) {
+            return "场景最大间隔必须大于0";
+        }
+        
+        if (request.getMinSceneIntervalSeconds() != null && request.getMaxSceneIntervalSeconds() != null
+            && request.getMaxSceneIntervalSeconds() < request.getMinSceneIntervalSeconds()) {
+            return "场景最大间隔不能小于最小间隔";
+        }
+        
+        if (request.getDedupDistance() < 0 || request.getDedupDistance() > 63) {
+            return "去重汉明距离必须在0-63之间";
+        }
+
+        if (request.isSpriteOutput()) {
+            if (request.getSpriteColumns() < 1 || request.getSpriteColumns() > 50
+                || request.getSpriteRows() < 1 || request.getSpriteRows() > 50) {
+                return "拼图列数与行数必须在1-50之间";
+            }
+            if (request.getMaxWidth() != null && (long) request.getMaxWidth() * request.getSpriteColumns() > 16384) {
+                return "拼图宽度（缩略图宽度 x 列数）不能超过16384像素";
+            }
+            if (request.getMaxHeight() != null && (long) request.getMaxHeight() * request.getSpriteRows() > 16384) {
+                return "拼图高度（缩略图高度 x 行数）不能超过16384像素";
+            }
+        }
+
+        if (request.getSink() == FrameExtractionRequest.Sink.S3 && !frameStorage.isS3Configured()) {
+            return "未配置对象存储，不能输出到S3";
+        }
+        
         return null;
     }
 
+    /**
+     * 创建流式响应：每帧输出一条记录，最后输出汇总记录
+     */
+    private ResponseEntity<StreamingResponseBody> createFrameStream(boolean sse,
+            Function<Consumer<FrameExtractionResponse.FrameData>, FrameExtractionResponse> extraction) {
+        
+        StreamingResponseBody body = outputStream -> {
+            FrameExtractionResponse response = extraction.apply(frameData -> {
+                try {
+                    ObjectNode record = objectMapper.valueToTree(frameData);
+                    record.put("type", "frame");
+                    writeStreamRecord(outputStream, sse, "frame", record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            
+            Map<String, Object> summary = createStreamSummary(response);
+            summary.put("type", "summary");
+            writeStreamRecord(outputStream, sse, "summary", summary);
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON)
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .body(body);
+    }
+
+    /**
+     * 流式响应的汇总记录：视频信息、提取帧数、处理耗时
+     */
+    private Map<String, Object> createStreamSummary(FrameExtractionResponse response) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("success", response.isSuccess());
+        summary.put("message", response.getMessage());
+        summary.put("videoInfo", response.getVideoInfo());
+        summary.put("totalFramesExtracted", response.getTotalFramesExtracted());
+        if (response.getDuplicateFramesDropped() != null) {
+            summary.put("duplicateFramesDropped", response.getDuplicateFramesDropped());
+        }
+        summary.put("processingTimeMs", response.getProcessingTimeMs());
+        if (response.getStageTimings() != null) {
+            summary.put("stageTimings", response.getStageTimings());
+        }
+        if (response.getRetryAfterSeconds() != null) {
+            summary.put("retryAfterSeconds", response.getRetryAfterSeconds());
+        }
+        summary.put("timestamp", System.currentTimeMillis());
+        return summary;
+    }
+
+    /**
+     * 提取失败的响应：因服务繁忙被拒绝时返回503并带 Retry-After，其他失败返回500
+     */
+    private ResponseEntity<?> createFailureResponse(FrameExtractionResponse response) {
+        if (response.getRetryAfterSeconds() != null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(response.getRetryAfterSeconds()))
+                .body(response);
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+
+    /**
+     * 根据上传的文件、videoId 与各自的提取参数创建批量提取的视频列表，参数无效时抛出 IllegalArgumentException
+     */
+    private List<BatchExtractionService.Clip> createBatchClips(List<MultipartFile> videoFiles, List<String> videoIds,
+            List<FrameExtractionRequest> requests) {
+        List<MultipartFile> files = videoFiles != null ? videoFiles : new ArrayList<>();
+        List<String> ids = videoIds != null ? videoIds : new ArrayList<>();
+        int clipCount = files.size() + ids.size();
+        logger.info("接收到批量提取视频帧请求: {} 个视频", clipCount);
+        
+        if (clipCount == 0) {
+            throw new IllegalArgumentException("视频文件不能为空");
+        }
+        if (clipCount > batchExtractionService.getMaxClips()) {
+            throw new IllegalArgumentException("单次最多提交 " + batchExtractionService.getMaxClips() + " 个视频");
+        }
+        if (requests != null && requests.size() != 1 && requests.size() != clipCount) {
+            throw new IllegalArgumentException("requests 的数量必须为1或与视频数量一致");
+        }
+        
+        List<BatchExtractionService.Clip> clips = new ArrayList<>();
+        for (int i = 0; i < clipCount; i++) {
+            MultipartFile videoFile = i < files.size() ? files.get(i) : null;
+            String videoId = i < files.size() ? null : ids.get(i - files.size());
+            
+            String videoError = validateVideo(videoFile, videoId);
+            if (videoError != null) {
+                throw new IllegalArgumentException("第" + (i + 1) + "个视频: " + videoError);
+            }
+            
+            // 每个视频使用独立的请求对象
+            FrameExtractionRequest request = requests == null ? new FrameExtractionRequest()
+                : objectMapper.convertValue(requests.get(requests.size() == 1 ? 0 : i), FrameExtractionRequest.class);
+            request.setVideoFileName(getVideoName(videoFile, videoId));
+            
+            String validationError = validateRequest(request);
+            if (validationError != null) {
+                throw new IllegalArgumentException("第" + (i + 1) + "个视频: " + validationError);
+            }
+            clips.add(new BatchExtractionService.Clip(videoFile, videoId, request));
+        }
+        return clips;
+    }
+
+    /**
+     * 写出一条批量流式记录，多个解码线程共用同一输出流
+     */
+    private void writeBatchRecord(OutputStream outputStream, boolean sse, String event, Object record) {
+        synchronized (outputStream) {
+            try {
+                writeStreamRecord(outputStream, sse, event, record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * 批量提取汇总：成功与失败的视频数、提取帧总数、处理耗时
+     */
+    private Map<String, Object> createBatchSummary(List<BatchClipResult> results, long startTime) {
+        int failedClips = 0;
+        int totalFrames = 0;
+        for (BatchClipResult result : results) {
+            if (!result.isSuccess()) {
+                failedClips++;
+            }
+            totalFrames += result.getTotalFramesExtracted();
+        }
+        
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("success", failedClips == 0);
+        summary.put("message", failedClips == 0 ? "批量提取成功" : failedClips + " 个视频提取失败");
+        summary.put("totalClips", results.size());
+        summary.put("failedClips", failedClips);
+        summary.put("totalFramesExtracted", totalFrames);
+        summary.put("processingTimeMs", System.currentTimeMillis() - startTime);
+        summary.put("timestamp", System.currentTimeMillis());
+        return summary;
+    }
+
+    /**
+     * 写出一条流式记录并立即刷新：NDJSON为一行JSON，SSE为一个事件
+     */
+    private void writeStreamRecord(OutputStream outputStream, boolean sse, String event, Object record)
+            throws IOException {
+        String json = objectMapper.writeValueAsString(record);
+        String line = sse ? "event: " + event + "\ndata: " + json + "\n\n" : json + "\n";
+        outputStream.write(line.getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+
     /**
      * 创建成功响应
      */
@@ -0,0 +1,43 @@
+package com.videoprocessor.model;
+
+/**
+ * 批量提取中单个视频的结果
+ * 在单个视频的提取结果之外，带有该视频在批量请求中的序号与名称
+ */
+public class BatchClipResult extends FrameExtractionResponse {
+
+    private int clipIndex; // 视频在请求中的序号，从0开始
+    private String videoName; // 上传的文件名或 videoId
+
+    public BatchClipResult() {}
+
+    public BatchClipResult(int clipIndex, String videoName, FrameExtractionResponse response) {
+        super(response.isSuccess(), response.getMessage());
+        this.clipIndex = clipIndex;
+        this.videoName = videoName;
+        setVideoInfo(response.getVideoInfo());
+        setFrames(response.getFrames());
+        setTotalFramesExtracted(response.getTotalFramesExtracted());
+        setDuplicateFramesDropped(response.getDuplicateFramesDropped());
+        setProcessingTimeMs(response.getProcessingTimeMs());
+        setStageTimings(response.getStageTimings());
+        setRetryAfterSeconds(response.getRetryAfterSeconds());
+    }
+
+    // Getters and Setters
+    public int getClipIndex() {
+        return clipIndex;
+    }
+
+    public void setClipIndex(int clipIndex) {
+        this.clipIndex = clipIndex;
+    }
+
+    public String getVideoName() {
+        return videoName;
+    }
+
+    public void setVideoName(String videoName) {
+        this.videoName = videoName;
+    }
+}
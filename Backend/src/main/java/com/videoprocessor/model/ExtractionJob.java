@@ -0,0 +1,145 @@
+package com.videoprocessor.model;
+
+/**
+ * 异步帧提取任务状态模型
+ */
+public class ExtractionJob {
+
+    // 任务状态
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private String jobId;
+    private String fileName;
+    private volatile Status status = Status.QUEUED;
+    private volatile String message;
+    private volatile VideoInfo videoInfo;
+    private volatile int framesExtracted; // 已提取帧数
+    private volatile int estimatedTotalFrames; // 预计提取帧数
+    private long createdAt;
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+    private volatile Long expiresAt; // 结果过期时间，过期后任务被清除
+
+    public ExtractionJob() {}
+
+    public ExtractionJob(String jobId, String fileName) {
+        this.jobId = jobId;
+        this.fileName = fileName;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 提取进度（0-100），未获取到视频信息前为0
+     */
+    public double getProgress() {
+        if (status == Status.COMPLETED) {
+            return 100.0;
+        }
+        if (estimatedTotalFrames <= 0) {
+            return 0.0;
+        }
+        return Math.min(99.0, framesExtracted * 100.0 / estimatedTotalFrames);
+    }
+
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public VideoInfo getVideoInfo() {
+        return videoInfo;
+    }
+
+    public void setVideoInfo(VideoInfo videoInfo) {
+        this.videoInfo = videoInfo;
+    }
+
+    public int getFramesExtracted() {
+        return framesExtracted;
+    }
+
+    public void setFramesExtracted(int framesExtracted) {
+        this.framesExtracted = framesExtracted;
+    }
+
+    public int getEstimatedTotalFrames() {
+        return estimatedTotalFrames;
+    }
+
+    public void setEstimatedTotalFrames(int estimatedTotalFrames) {
+        this.estimatedTotalFrames = estimatedTotalFrames;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ExtractionJob{" +
+                "jobId='" + jobId + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", status=" + status +
+                ", framesExtracted=" + framesExtracted +
+                ", estimatedTotalFrames=" + estimatedTotalFrames +
+                '}';
+    }
+}
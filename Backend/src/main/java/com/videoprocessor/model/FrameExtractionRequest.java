@@ -1,5 +1,6 @@
 package com.videoprocessor.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
@@ -7,6 +8,52 @@ import jakarta.validation.constraints.NotNull;
  * 帧提取请求参数模型
  */
 public class FrameExtractionRequest {
+
+    /**
+     * 提取模式
+     */
+    public enum Mode {
+        // 按 intervalSeconds 间隔提取，未指定间隔时提取所有帧
+        DEFAULT,
+        // 只解码并返回关键帧（I帧），时间戳为关键帧的实际时间，忽略 intervalSeconds
+        KEYFRAMES,
+        // 逐帧检测画面变化，只返回与上一个返回帧差异达到阈值的帧，忽略 intervalSeconds
+        SCENE_CHANGE
+    }
+
+    /**
+     * 解码输出的像素格式
+     */
+    public enum PixelFormat {
+        // 彩色（BGR 24位）
+        BGR24,
+        // 灰度（8位），数据量为彩色的三分之一
+        GRAY8
+    }
+
+    /**
+     * 相似帧去重方式
+     */
+    public enum Dedup {
+        // 不去重
+        NONE,
+        // 与上一个保留帧相似时丢弃
+        LAST,
+        // 与任一已保留帧相似时丢弃
+        ALL
+    }
+
+    /**
+     * 帧图片的输出位置
+     */
+    public enum Sink {
+        // 以base64编码随响应返回
+        INLINE,
+        // 写入服务器输出目录，响应只返回文件路径
+        DISK,
+        // 上传到S3兼容的对象存储，响应只返回对象URL
+        S3
+    }
     
     @NotNull(message = "视频文件不能为空")
     private String videoFileName;
@@ -32,6 +79,52 @@ public class FrameExtractionRequest {
     // 是否返回base64编码，默认true
     private Boolean returnBase64 = true;
 
+    // 以二进制返回图片数据（multipart/mixed、ZIP响应），由响应格式决定，不接受请求参数
+    @JsonIgnore
+    private boolean binaryOutput;
+
+    // 提取模式，默认按间隔或全部帧提取
+    private Mode mode = Mode.DEFAULT;
+
+    // 输出图片最大宽度（像素），保持宽高比缩小，为null时不限制
+    @Min(value = 1, message = "最大宽度必须大于0")
+    private Integer maxWidth;
+
+    // 输出图片最大高度（像素），保持宽高比缩小，为null时不限制
+    @Min(value = 1, message = "最大高度必须大于0")
+    private Integer maxHeight;
+
+    // 输出像素格式，默认彩色
+    private PixelFormat pixelFormat = PixelFormat.BGR24;
+
+    // 场景变化阈值（0-1），与上一个返回帧的亮度差异达到该值时返回当前帧
+    private Double sceneThreshold = 0.06;
+
+    // 场景变化模式下相邻返回帧的最小间隔（秒），为null时不限制
+    private Double minSceneIntervalSeconds;
+
+    // 场景变化模式下相邻返回帧的最大间隔（秒），画面长时间不变时也按此间隔返回，为null时不限制
+    private Double maxSceneIntervalSeconds;
+
+    // 相似帧去重方式，默认不去重
+    private Dedup dedup = Dedup.NONE;
+
+    // 去重时视为相似的最大汉明距离（0-63，64位感知哈希）
+    private Integer dedupDistance = 5;
+
+    // 帧图片输出位置，默认随响应返回
+    private Sink sink = Sink.INLINE;
+
+    // 是否在响应中返回各阶段耗时（stageTimings），默认false
+    private Boolean includeTimings = false;
+
+    // 雪碧图每张拼图的列数与行数，为null时逐帧输出；只由雪碧图接口设置，不接受请求参数
+    @JsonIgnore
+    private Integer spriteColumns;
+
+    @JsonIgnore
+    private Integer spriteRows;
+
     public FrameExtractionRequest() {}
 
     // Getters and Setters
@@ -56,7 +149,7 @@ public class FrameExtractionRequest {
     }
 
     public void setStartTimeSeconds(Integer startTimeSeconds) {
-        this.startTimeSeconds = startTimeSeconds;
+        this.startTimeSeconds = startTimeSeconds != null ? startTimeSeconds : 0;
     }
 
     public Integer getEndTimeSeconds() {
@@ -72,7 +165,7 @@ public class FrameExtractionRequest {
     }
 
     public void setOutputFormat(String outputFormat) {
-        this.outputFormat = outputFormat;
+        this.outputFormat = outputFormat != null ? outputFormat : "jpg";
     }
 
     public Integer getImageQuality() {
@@ -80,7 +173,7 @@ public class FrameExtractionRequest {
     }
 
     public void setImageQuality(Integer imageQuality) {
-        this.imageQuality = imageQuality;
+        this.imageQuality = imageQuality != null ? imageQuality : 85;
     }
 
     public Boolean getReturnBase64() {
@@ -88,7 +181,127 @@ public class FrameExtractionRequest {
     }
 
     public void setReturnBase64(Boolean returnBase64) {
-        this.returnBase64 = returnBase64;
+        this.returnBase64 = returnBase64 != null ? returnBase64 : true;
+    }
+
+    public boolean isBinaryOutput() {
+        return binaryOutput;
+    }
+
+    public void setBinaryOutput(boolean binaryOutput) {
+        this.binaryOutput = binaryOutput;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode != null ? mode : Mode.DEFAULT;
+    }
+
+    public Integer getMaxWidth() {
+        return maxWidth;
+    }
+
+    public void setMaxWidth(Integer maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public Integer getMaxHeight() {
+        return maxHeight;
+    }
+
+    public void setMaxHeight(Integer maxHeight) {
+        this.maxHeight = maxHeight;
+    }
+
+    public PixelFormat getPixelFormat() {
+        return pixelFormat;
+    }
+
+    public void setPixelFormat(PixelFormat pixelFormat) {
+        this.pixelFormat = pixelFormat != null ? pixelFormat : PixelFormat.BGR24;
+    }
+
+    public Double getSceneThreshold() {
+        return sceneThreshold;
+    }
+
+    public void setSceneThreshold(Double sceneThreshold) {
+        this.sceneThreshold = sceneThreshold != null ? sceneThreshold : 0.06;
+    }
+
+    public Double getMinSceneIntervalSeconds() {
+        return minSceneIntervalSeconds;
+    }
+
+    public void setMinSceneIntervalSeconds(Double minSceneIntervalSeconds) {
+        this.minSceneIntervalSeconds = minSceneIntervalSeconds;
+    }
+
+    public Double getMaxSceneIntervalSeconds() {
+        return maxSceneIntervalSeconds;
+    }
+
+    public void setMaxSceneIntervalSeconds(Double maxSceneIntervalSeconds) {
+        this.maxSceneIntervalSeconds = maxSceneIntervalSeconds;
+    }
+
+    public Dedup getDedup() {
+        return dedup;
+    }
+
+    public void setDedup(Dedup dedup) {
+        this.dedup = dedup != null ? dedup : Dedup.NONE;
+    }
+
+    public Integer getDedupDistance() {
+        return dedupDistance;
+    }
+
+    public void setDedupDistance(Integer dedupDistance) {
+        this.dedupDistance = dedupDistance != null ? dedupDistance : 5;
+    }
+
+    public Sink getSink() {
+        return sink;
+    }
+
+    public void setSink(Sink sink) {
+        this.sink = sink != null ? sink : Sink.INLINE;
+    }
+
+    public Boolean getIncludeTimings() {
+        return includeTimings;
+    }
+
+    public void setIncludeTimings(Boolean includeTimings) {
+        this.includeTimings = includeTimings != null ? includeTimings : false;
+    }
+
+    public Integer getSpriteColumns() {
+        return spriteColumns;
+    }
+
+    public void setSpriteColumns(Integer spriteColumns) {
+        this.spriteColumns = spriteColumns;
+    }
+
+    public Integer getSpriteRows() {
+        return spriteRows;
+    }
+
+    public void setSpriteRows(Integer spriteRows) {
+        this.spriteRows = spriteRows;
+    }
+
+    /**
+     * 是否输出雪碧图
+     */
+    @JsonIgnore
+    public boolean isSpriteOutput() {
+        return spriteColumns != null && spriteRows != null;
     }
 
     @Override
@@ -101,6 +314,19 @@ public class FrameExtractionRequest {
                 ", outputFormat='" + outputFormat + '\'' +
                 ", imageQuality=" + imageQuality +
                 ", returnBase64=" + returnBase64 +
+                ", mode=" + mode +
+                ", maxWidth=" + maxWidth +
+                ", maxHeight=" + maxHeight +
+                ", pixelFormat=" + pixelFormat +
+                ", sceneThreshold=" + sceneThreshold +
+                ", minSceneIntervalSeconds=" + minSceneIntervalSeconds +
+                ", maxSceneIntervalSeconds=" + maxSceneIntervalSeconds +
+                ", dedup=" + dedup +
+                ", dedupDistance=" + dedupDistance +
+                ", sink=" + sink +
+                ", includeTimings=" + includeTimings +
+                ", spriteColumns=" + spriteColumns +
+                ", spriteRows=" + spriteRows +
                 '}';
     }
 }
\ No newline at end of file
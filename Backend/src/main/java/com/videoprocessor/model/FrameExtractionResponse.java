@@ -1,6 +1,9 @@
 package com.videoprocessor.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
+import java.util.Map;
 
 /**
  * 帧提取响应结果模型
@@ -12,7 +15,10 @@ public class FrameExtractionResponse {
     private VideoInfo videoInfo;
     private List<FrameData> frames;
     private int totalFramesExtracted;
+    private Integer duplicateFramesDropped; // 相似帧去重丢弃的帧数，未去重时为null
     private long processingTimeMs;
+    private Map<String, Double> stageTimings; // 各阶段累计耗时（毫秒），请求 includeTimings=true 时返回
+    private Integer retryAfterSeconds; // 服务繁忙被拒绝时建议的重试间隔（秒），其他情况为null
 
     public FrameExtractionResponse() {}
 
@@ -26,6 +32,8 @@ public class FrameExtractionResponse {
         private int frameNumber;
         private double timestampSeconds;
         private String base64Data;
+        @JsonIgnore
+        private byte[] imageData; // 二进制响应的图片数据，不参与JSON序列化
         private String fileName; // 如果保存为文件
         private int width;
         private int height;
@@ -65,6 +73,14 @@ public class FrameExtractionResponse {
             this.base64Data = base64Data;
         }
 
+        public byte[] getImageData() {
+            return imageData;
+        }
+
+        public void setImageData(byte[] imageData) {
+            this.imageData = imageData;
+        }
+
         public String getFileName() {
             return fileName;
         }
@@ -131,6 +147,14 @@ public class FrameExtractionResponse {
         this.totalFramesExtracted = totalFramesExtracted;
     }
 
+    public Integer getDuplicateFramesDropped() {
+        return duplicateFramesDropped;
+    }
+
+    public void setDuplicateFramesDropped(Integer duplicateFramesDropped) {
+        this.duplicateFramesDropped = duplicateFramesDropped;
+    }
+
     public long getProcessingTimeMs() {
         return processingTimeMs;
     }
@@ -138,4 +162,20 @@ public class FrameExtractionResponse {
     public void setProcessingTimeMs(long processingTimeMs) {
         this.processingTimeMs = processingTimeMs;
     }
-}
\ No newline at end of file
+
+    public Map<String, Double> getStageTimings() {
+        return stageTimings;
+    }
+
+    public void setStageTimings(Map<String, Double> stageTimings) {
+        this.stageTimings = stageTimings;
+    }
+
+    public Integer getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(Integer retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,91 @@
+package com.videoprocessor.model;
+
+import java.util.List;
+
+/**
+ * 雪碧图（缩略图拼图）
+ * 一张拼图作为一帧返回，时间戳为第一个缩略图的时间，tiles 为拼图中各缩略图的位置与时间
+ */
+public class SpriteSheet extends FrameExtractionResponse.FrameData {
+
+    private List<Tile> tiles;
+
+    public SpriteSheet() {}
+
+    public SpriteSheet(FrameExtractionResponse.FrameData sheet, List<Tile> tiles) {
+        super(sheet.getFrameNumber(), sheet.getTimestampSeconds(), sheet.getBase64Data(),
+            sheet.getWidth(), sheet.getHeight());
+        setImageData(sheet.getImageData());
+        setFileName(sheet.getFileName());
+        this.tiles = tiles;
+    }
+
+    // 内部类：拼图中的一个缩略图
+    public static class Tile {
+        private double timestampSeconds;
+        private int x;
+        private int y;
+        private int width;
+        private int height;
+
+        public Tile() {}
+
+        public Tile(double timestampSeconds, int x, int y, int width, int height) {
+            this.timestampSeconds = timestampSeconds;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        // Getters and Setters
+        public double getTimestampSeconds() {
+            return timestampSeconds;
+        }
+
+        public void setTimestampSeconds(double timestampSeconds) {
+            this.timestampSeconds = timestampSeconds;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public void setX(int x) {
+            this.x = x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public void setY(int y) {
+            this.y = y;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public void setHeight(int height) {
+            this.height = height;
+        }
+    }
+
+    // Getters and Setters
+    public List<Tile> getTiles() {
+        return tiles;
+    }
+
+    public void setTiles(List<Tile> tiles) {
+        this.tiles = tiles;
+    }
+}
@@ -0,0 +1,61 @@
+package com.videoprocessor.model;
+
+/**
+ * 雪碧图提取结果
+ * frames 为拼图列表（SpriteSheet），webVtt 为缩略图轨道，每个时间段对应拼图中的一个 #xywh 区域
+ */
+public class SpriteSheetResponse extends FrameExtractionResponse {
+
+    private int columns;
+    private int rows;
+    private int totalTiles; // 所有拼图中的缩略图总数
+    private String webVtt;
+
+    public SpriteSheetResponse() {}
+
+    public SpriteSheetResponse(FrameExtractionResponse response, int columns, int rows) {
+        super(response.isSuccess(), response.getMessage());
+        this.columns = columns;
+        this.rows = rows;
+        setVideoInfo(response.getVideoInfo());
+        setFrames(response.getFrames());
+        setTotalFramesExtracted(response.getTotalFramesExtracted());
+        setDuplicateFramesDropped(response.getDuplicateFramesDropped());
+        setProcessingTimeMs(response.getProcessingTimeMs());
+        setStageTimings(response.getStageTimings());
+        setRetryAfterSeconds(response.getRetryAfterSeconds());
+    }
+
+    // Getters and Setters
+    public int getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int columns) {
+        this.columns = columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getTotalTiles() {
+        return totalTiles;
+    }
+
+    public void setTotalTiles(int totalTiles) {
+        this.totalTiles = totalTiles;
+    }
+
+    public String getWebVtt() {
+        return webVtt;
+    }
+
+    public void setWebVtt(String webVtt) {
+        this.webVtt = webVtt;
+    }
+}
@@ -4,18 +4,19 @@ package com.videoprocessor.model;
  * 视频信息模型类
  */
 public class VideoInfo {
+    private String videoId; // 视频ID（内容SHA-256），可代替上传文件引用该视频
     private String fileName;
     private long duration; // 视频时长（毫秒）
     private double frameRate; // 帧率
     private int width; // 视频宽度
     private int height; // 视频高度
-    private long fileSize; // 文件大小（字节）
+    private Long fileSize; // 文件大小（字节），边上传边探测且未读完文件时未知，为null
     private String format; // 视频格式
     private int totalFrames; // 总帧数
 
     public VideoInfo() {}
 
-    public VideoInfo(String fileName, long duration, double frameRate, int width, int height, long fileSize, String format) {
+    public VideoInfo(String fileName, long duration, double frameRate, int width, int height, Long fileSize, String format) {
         this.fileName = fileName;
         this.duration = duration;
         this.frameRate = frameRate;
@@ -27,6 +28,14 @@ public class VideoInfo {
     }
 
     // Getters and Setters
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
     public String getFileName() {
         return fileName;
     }
@@ -67,11 +76,11 @@ public class VideoInfo {
         this.height = height;
     }
 
-    public long getFileSize() {
+    public Long getFileSize() {
         return fileSize;
     }
 
-    public void setFileSize(long fileSize) {
+    public void setFileSize(Long fileSize) {
         this.fileSize = fileSize;
     }
 
@@ -94,7 +103,8 @@ public class VideoInfo {
     @Override
     public String toString() {
         return "VideoInfo{" +
-                "fileName='" + fileName + '\'' +
+                "videoId='" + videoId + '\'' +
+                ", fileName='" + fileName + '\'' +
                 ", duration=" + duration +
                 ", frameRate=" + frameRate +
                 ", width=" + width +
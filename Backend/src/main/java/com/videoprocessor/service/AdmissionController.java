@@ -0,0 +1,265 @@
+package com.videoprocessor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 提取请求的准入控制
+ * 每个请求在探测视频后估算成本（CPU槽位与内存字节数），从总预算中预留，提取结束后归还。
+ * 预算不足时按到达顺序排队，超过排队时限或排队数已满时拒绝，并给出建议的重试间隔；
+ * 单个请求的成本超过总预算时按总预算计，即独占运行。预算占用通过 video.admission.* 指标导出。
+ */
+@Component
+public class AdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private static final int MAX_RETRY_AFTER_SECONDS = 300;
+
+    @Value("${video.processor.admission.enabled:true}")
+    private boolean enabled;
+
+    // CPU槽位总数，0表示使用CPU核数
+    @Value("${video.processor.admission.cpu-slots:0}")
+    private double cpuSlots;
+
+    // 内存预算，0表示使用最大堆内存的一半
+    @Value("${video.processor.admission.memory-budget:0}")
+    private DataSize memoryBudget;
+
+    @Value("${video.processor.admission.queue-timeout:30s}")
+    private Duration queueTimeout;
+
+    @Value("${video.processor.admission.max-queued:50}")
+    private int maxQueued;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    // 排队中的请求，按到达顺序，只有队首可以获得预算
+    private final Deque<Object> queue = new ArrayDeque<>();
+
+    private double cpuCapacity;
+    private long memoryCapacity;
+    private double cpuUsed;
+    private long memoryUsed;
+    private int running;
+    // 请求占用预算的平均时长（秒，指数滑动平均），用于估算重试间隔
+    private double averageHoldSeconds;
+
+    private Counter admitted;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        cpuCapacity = cpuSlots > 0 ? cpuSlots : Runtime.getRuntime().availableProcessors();
+        memoryCapacity = memoryBudget.toBytes() > 0 ? memoryBudget.toBytes() : Runtime.getRuntime().maxMemory() / 2;
+
+        Gauge.builder("video.admission.cpu.used", this, controller -> controller.read(() -> controller.cpuUsed))
+            .description("已预留的CPU槽位")
+            .register(registry);
+        Gauge.builder("video.admission.cpu.capacity", this, controller -> controller.cpuCapacity)
+            .description("CPU槽位总数")
+            .register(registry);
+        Gauge.builder("video.admission.memory.used", this, controller -> controller.read(() -> controller.memoryUsed))
+            .description("已预留的内存")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("video.admission.memory.capacity", this, controller -> controller.memoryCapacity)
+            .description("内存预算")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("video.admission.running", this, controller -> controller.read(() -> controller.running))
+            .description("已获得预算的请求数")
+            .register(registry);
+        Gauge.builder("video.admission.queued", this, controller -> controller.read(controller.queue::size))
+            .description("排队等待预算的请求数")
+            .register(registry);
+        admitted = Counter.builder("video.admission.admitted")
+            .description("获得预算的请求数")
+            .register(registry);
+        rejected = Counter.builder("video.admission.rejected")
+            .description("因预算不足被拒绝的请求数")
+            .register(registry);
+        logger.info("准入控制: {}，CPU槽位 {}，内存预算 {}MB，排队时限 {}s", enabled ? "启用" : "关闭",
+            cpuCapacity, memoryCapacity >> 20, queueTimeout.getSeconds());
+    }
+
+    /**
+     * 预留请求成本，预算不足时排队等待，超过排队时限或排队数已满时抛出 AdmissionRejectedException
+     * 返回的许可在提取结束后关闭以归还预算
+     */
+    public Permit acquire(Cost cost) throws InterruptedException {
+        if (!enabled) {
+            return new Permit(0, 0);
+        }
+        double cpu = Math.min(cost.getCpuSlots(), cpuCapacity);
+        long memory = Math.min(cost.getBytes(), memoryCapacity);
+
+        Object ticket = new Object();
+        long remainingNanos = queueTimeout.toNanos();
+        lock.lock();
+        try {
+            if (queue.isEmpty() && fits(cpu, memory)) {
+                return reserve(cpu, memory);
+            }
+            if (queue.size() >= maxQueued) {
+                throw reject(cost, "排队数已满");
+            }
+            queue.addLast(ticket);
+            try {
+                logger.info("预算不足，请求排队: {}，当前排队 {}", cost, queue.size());
+                while (queue.peekFirst() != ticket || !fits(cpu, memory)) {
+                    if (remainingNanos <= 0) {
+                        throw reject(cost, "排队超时");
+                    }
+                    remainingNanos = released.awaitNanos(remainingNanos);
+                }
+                return reserve(cpu, memory);
+            } finally {
+                queue.remove(ticket);
+                // 队首变化后其余排队请求需要重新判断
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前预算占用，供监控与扩缩容参考
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        lock.lock();
+        try {
+            stats.put("cpuSlotsUsed", cpuUsed);
+            stats.put("cpuSlotsCapacity", cpuCapacity);
+            stats.put("memoryBytesUsed", memoryUsed);
+            stats.put("memoryBytesCapacity", memoryCapacity);
+            stats.put("running", running);
+            stats.put("queued", queue.size());
+            stats.put("averageHoldSeconds", Math.round(averageHoldSeconds * 10) / 10.0);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("admitted", (long) admitted.count());
+        stats.put("rejected", (long) rejected.count());
+        return stats;
+    }
+
+    private boolean fits(double cpu, long memory) {
+        return cpuUsed + cpu <= cpuCapacity + 1e-9 && memoryUsed + memory <= memoryCapacity;
+    }
+
+    private Permit reserve(double cpu, long memory) {
+        cpuUsed += cpu;
+        memoryUsed += memory;
+        running++;
+        admitted.increment();
+        return new Permit(cpu, memory);
+    }
+
+    private AdmissionRejectedException reject(Cost cost, String reason) {
+        rejected.increment();
+        // 按平均占用时长估算排在前面的请求与本请求完成所需的时间
+        double holdSeconds = averageHoldSeconds > 0 ? averageHoldSeconds : queueTimeout.getSeconds();
+        int retryAfter = (int) Math.ceil(holdSeconds * (queue.size() + 1) / Math.max(1, running));
+        retryAfter = Math.max(1, Math.min(MAX_RETRY_AFTER_SECONDS, retryAfter));
+        logger.warn("请求被拒绝（{}）: {}，建议 {} 秒后重试", reason, cost, retryAfter);
+        return new AdmissionRejectedException("服务繁忙（" + reason + "），请稍后重试", retryAfter);
+    }
+
+    private double read(DoubleSupplier supplier) {
+        lock.lock();
+        try {
+            return supplier.getAsDouble();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 请求成本：占用的CPU槽位（可为小数）与内存字节数
+     */
+    public static class Cost {
+        private final double cpuSlots;
+        private final long bytes;
+
+        public Cost(double cpuSlots, long bytes) {
+            this.cpuSlots = cpuSlots;
+            this.bytes = bytes;
+        }
+
+        public double getCpuSlots() {
+            return cpuSlots;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CPU %.2f 槽位, 内存 %dMB", cpuSlots, bytes >> 20);
+        }
+    }
+
+    /**
+     * 已预留的预算，关闭时归还，重复关闭无效
+     */
+    public class Permit implements AutoCloseable {
+        private final double cpu;
+        private final long memory;
+        private final long acquiredNanos = System.nanoTime();
+        private boolean closed;
+
+        private Permit(double cpu, long memory) {
+            this.cpu = cpu;
+            this.memory = memory;
+        }
+
+        @Override
+        public void close() {
+            if (!enabled) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                cpuUsed -= cpu;
+                memoryUsed -= memory;
+                running--;
+                double holdSeconds = (System.nanoTime() - acquiredNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+                averageHoldSeconds = averageHoldSeconds > 0 ? averageHoldSeconds * 0.8 + holdSeconds * 0.2 : holdSeconds;
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.videoprocessor.service;
+
+/**
+ * 提取请求因预算不足被拒绝
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议的重试间隔（秒）
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,155 @@
+package com.videoprocessor.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 异步帧输出
+ * 提取线程提交帧后立即返回帧的位置，写入由输出线程池按批完成：每个输出任务一次取出最多 batchSize 帧依次写入，
+ * 同一次提取最多同时占用 maxWriters 个输出线程。尚未写完的帧数不超过 maxPending，超过时提交方等待，
+ * 内存占用不会随存储变慢而增长。写入失败后不再写入后续帧，失败原因由 submit 或 finish 抛出。
+ * 每次提取创建一个实例。
+ */
+public class AsyncFrameWriter {
+
+    private final FrameSink sink;
+    private final Executor executor;
+    private final int batchSize;
+    private final int maxWriters;
+    private final int maxPending;
+    private final Semaphore pendingPermits;
+    private final ExtractionTimings timings;
+
+    // 等待写入的帧，由 this 锁保护
+    private final Deque<PendingFrame> queue = new ArrayDeque<>();
+    private int activeWriters;
+
+    private volatile IOException failure;
+
+    public AsyncFrameWriter(FrameSink sink, Executor executor, int batchSize, int maxWriters, int maxPending,
+            ExtractionTimings timings) {
+        this.sink = sink;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWriters = Math.max(1, maxWriters);
+        this.maxPending = Math.max(1, maxPending);
+        this.pendingPermits = new Semaphore(this.maxPending);
+        this.timings = timings;
+    }
+
+    /**
+     * 提交一帧，返回写入后的位置（文件路径或URL）
+     */
+    public String submit(String fileName, byte[] data) throws IOException {
+        checkFailure();
+        try {
+            pendingPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("帧提取已取消");
+        }
+
+        boolean startWriter = false;
+        synchronized (this) {
+            queue.addLast(new PendingFrame(fileName, data));
+            if (activeWriters < maxWriters && activeWriters < queue.size()) {
+                activeWriters++;
+                startWriter = true;
+            }
+        }
+        if (startWriter) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    activeWriters--;
+                }
+                throw e;
+            }
+        }
+        return sink.locationOf(fileName);
+    }
+
+    /**
+     * 等待已提交的帧全部写完，有帧写入失败时抛出失败原因
+     */
+    public void finish() throws IOException {
+        try {
+            pendingPermits.acquire(maxPending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("帧提取已取消");
+        }
+        pendingPermits.release(maxPending);
+        checkFailure();
+    }
+
+    /**
+     * 放弃尚未开始写入的帧（提取失败或取消时调用），正在写入的帧不受影响
+     */
+    public void cancel() {
+        int dropped;
+        synchronized (this) {
+            dropped = queue.size();
+            queue.clear();
+        }
+        pendingPermits.release(dropped);
+    }
+
+    /**
+     * 输出线程：按批取出帧并写入，队列为空时结束
+     */
+    private void drain() {
+        List<PendingFrame> batch = new ArrayList<>(batchSize);
+        while (true) {
+            synchronized (this) {
+                while (batch.size() < batchSize && !queue.isEmpty()) {
+                    batch.add(queue.pollFirst());
+                }
+                if (batch.isEmpty()) {
+                    activeWriters--;
+                    return;
+                }
+            }
+            try {
+                for (PendingFrame frame : batch) {
+                    if (failure == null) {
+                        long writeStartNanos = System.nanoTime();
+                        sink.write(frame.fileName, frame.data);
+                        timings.record(ExtractionTimings.Stage.WRITE, writeStartNanos);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e.getMessage(), e);
+            } finally {
+                pendingPermits.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw new IOException("写入帧图片失败: " + error.getMessage(), error);
+        }
+    }
+
+    private static class PendingFrame {
+        private final String fileName;
+        private final byte[] data;
+
+        private PendingFrame(String fileName, byte[] data) {
+            this.fileName = fileName;
+            this.data = data;
+        }
+    }
+}
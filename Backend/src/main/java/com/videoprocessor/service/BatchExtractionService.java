@@ -0,0 +1,286 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.BatchClipResult;
+import com.videoprocessor.model.FrameExtractionRequest;
+import com.videoprocessor.model.FrameExtractionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 批量帧提取服务
+ * 一次请求提交多个视频（上传文件或 videoId），每个视频使用各自的提取参数，在共享的批量线程池中并行解码。
+ * 同时进行的多个批量请求之间按视频轮流分配空闲线程，视频多的请求不会让后到的请求一直等待；
+ * 同一请求内的视频按提交顺序开始，并行解码的视频数量不超过线程池大小。
+ */
+@Service
+public class BatchExtractionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchExtractionService.class);
+
+    /**
+     * 批量提取的回调，由解码线程并发调用
+     */
+    public interface BatchListener {
+        /**
+         * 某个视频提取到一帧
+         */
+        default void onFrame(int clipIndex, FrameExtractionResponse.FrameData frameData) {
+        }
+
+        /**
+         * 某个视频提取结束（成功或失败）
+         */
+        default void onClipFinished(BatchClipResult result) {
+        }
+    }
+
+    @Autowired
+    private VideoProcessorService videoProcessorService;
+
+    @Autowired
+    @Qualifier("batchExecutor")
+    private ExecutorService batchExecutor;
+
+    @Value("${video.processor.batch.max-concurrent:0}")
+    private int maxConcurrent;
+
+    @Value("${video.processor.batch.max-clips:50}")
+    private int maxClips;
+
+    // 尚有视频未开始的批量请求，按轮转顺序排列
+    private final Deque<BatchRun> pendingRuns = new ArrayDeque<>();
+
+    private int runningClips;
+
+    public int getMaxClips() {
+        return maxClips;
+    }
+
+    /**
+     * 提取一批视频的帧，阻塞直到所有视频处理结束，返回按提交顺序排列的结果
+     * collectFrames 为false时结果中不包含帧列表（帧只通过回调交给调用方）
+     */
+    public List<BatchClipResult> extract(List<Clip> clips, boolean collectFrames, BatchListener listener)
+            throws InterruptedException {
+        BatchRun run = new BatchRun(clips, collectFrames, listener);
+        logger.info("批量提取开始: {} 个视频", clips.size());
+
+        synchronized (this) {
+            pendingRuns.addLast(run);
+        }
+        dispatch();
+
+        try {
+            run.finished.await();
+        } catch (InterruptedException e) {
+            cancel(run);
+            throw e;
+        }
+
+        return Arrays.asList(run.results);
+    }
+
+    /**
+     * 将空闲线程分配给等待中的视频：每次从队首的批量请求取出一个视频，该请求仍有视频时移到队尾
+     */
+    private void dispatch() {
+        synchronized (this) {
+            int limit = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+            while (runningClips < limit && !pendingRuns.isEmpty()) {
+                BatchRun run = pendingRuns.pollFirst();
+                int clipIndex = run.nextClip++;
+                if (run.nextClip < run.clips.size()) {
+                    pendingRuns.addLast(run);
+                }
+                runningClips++;
+                // 名额只释放一次：开始执行的视频在解码真正结束后释放，开始前被取消的视频在取消时释放
+                AtomicBoolean claimed = new AtomicBoolean();
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    if (!claimed.compareAndSet(false, true)) {
+                        return;
+                    }
+                    try {
+                        runClip(run, clipIndex);
+                    } finally {
+                        releaseClip();
+                    }
+                }, null) {
+                    @Override
+                    protected void done() {
+                        // 正在执行的视频被取消时，中断后线程仍在解码，直到它响应中断退出后才释放名额
+                        if (claimed.compareAndSet(false, true)) {
+                            run.clips.get(clipIndex).closePrepared();
+                            releaseClip();
+                        }
+                    }
+                };
+                run.futures[clipIndex] = task;
+                batchExecutor.execute(task);
+            }
+        }
+    }
+
+    /**
+     * 释放一个并发名额，并分配给等待中的视频
+     */
+    private void releaseClip() {
+        synchronized (this) {
+            runningClips--;
+        }
+        dispatch();
+    }
+
+    /**
+     * 在批量线程中提取一个视频
+     */
+    private void runClip(BatchRun run, int clipIndex) {
+        Clip clip = run.clips.get(clipIndex);
+        List<FrameExtractionResponse.FrameData> frames = run.collectFrames ? new ArrayList<>() : null;
+        BatchClipResult result;
+        try {
+            Consumer<FrameExtractionResponse.FrameData> consumer = frameData -> {
+                if (frames != null) {
+                    frames.add(frameData);
+                }
+                run.listener.onFrame(clipIndex, frameData);
+            };
+            PreparedExtraction prepared = clip.takePrepared();
+            FrameExtractionResponse response = prepared != null
+                ? videoProcessorService.streamFrames(prepared, consumer)
+                : videoProcessorService.streamFrames(clip.getVideoFile(), clip.getVideoId(), clip.getRequest(),
+                    run.collectFrames, consumer);
+            if (response.isSuccess()) {
+                response.setFrames(frames);
+            }
+            result = new BatchClipResult(clipIndex, clip.getVideoName(), response);
+        } catch (Exception e) {
+            logger.error("批量提取视频失败: {}", clip.getVideoName(), e);
+            result = new BatchClipResult(clipIndex, clip.getVideoName(),
+                new FrameExtractionResponse(false, "视频处理失败: " + e.getMessage()));
+        }
+
+        run.results[clipIndex] = result;
+        try {
+            run.listener.onClipFinished(result);
+        } finally {
+            run.finished.countDown();
+        }
+    }
+
+    /**
+     * 取消批量请求：未开始的视频不再执行，正在解码的视频中断
+     */
+    private void cancel(BatchRun run) {
+        List<Future<?>> futures = new ArrayList<>();
+        synchronized (this) {
+            pendingRuns.remove(run);
+            for (int i = 0; i < run.clips.size(); i++) {
+                if (run.futures[i] != null) {
+                    futures.add(run.futures[i]);
+                } else {
+                    run.clips.get(i).closePrepared();
+                }
+            }
+        }
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+        logger.info("批量提取已取消");
+    }
+
+    /**
+     * 批量请求中的一个视频：上传的视频文件或已缓存的 videoId，以及该视频的提取参数
+     */
+    public static class Clip {
+        private final MultipartFile videoFile;
+        private final String videoId;
+        private final FrameExtractionRequest request;
+        // 调用方预先完成准入的提取，执行时直接使用
+        private PreparedExtraction prepared;
+
+        public Clip(MultipartFile videoFile, String videoId, FrameExtractionRequest request) {
+            this.videoFile = videoFile;
+            this.videoId = videoId;
+            this.request = request;
+        }
+
+        public Clip(MultipartFile videoFile, String videoId, FrameExtractionRequest request,
+                PreparedExtraction prepared) {
+            this(videoFile, videoId, request);
+            this.prepared = prepared;
+        }
+
+        private synchronized PreparedExtraction takePrepared() {
+            PreparedExtraction taken = prepared;
+            prepared = null;
+            return taken;
+        }
+
+        /**
+         * 视频未执行就被取消时释放预先准入的提取
+         */
+        private void closePrepared() {
+            PreparedExtraction taken = takePrepared();
+            if (taken != null) {
+                taken.close();
+            }
+        }
+
+        public MultipartFile getVideoFile() {
+            return videoFile;
+        }
+
+        public String getVideoId() {
+            return videoId;
+        }
+
+        public FrameExtractionRequest getRequest() {
+            return request;
+        }
+
+        public String getVideoName() {
+            return videoFile != null ? videoFile.getOriginalFilename() : videoId;
+        }
+    }
+
+    /**
+     * 一次批量请求的执行状态
+     */
+    private static class BatchRun {
+        private final List<Clip> clips;
+        private final boolean collectFrames;
+        private final BatchListener listener;
+        private final BatchClipResult[] results;
+        // 已开始的视频的执行句柄，由调度锁保护
+        private final Future<?>[] futures;
+        private final CountDownLatch finished;
+        // 下一个待开始的视频序号，由调度锁保护
+        private int nextClip;
+
+        private BatchRun(List<Clip> clips, boolean collectFrames, BatchListener listener) {
+            this.clips = clips;
+            this.collectFrames = collectFrames;
+            this.listener = listener;
+            this.results = new BatchClipResult[clips.size()];
+            this.futures = new Future<?>[clips.size()];
+            this.finished = new CountDownLatch(clips.size());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 二进制帧输出
+ * 将编码后的图片直接写入响应输出流，不经过base64与JSON：
+ * multipart/mixed 每帧一个部分，帧序号、时间戳与尺寸放在部分头中，最后一个部分为JSON汇总；
+ * application/zip 每帧一个条目，最后写入 frames.json 清单（汇总与各帧的文件名、时间戳）。
+ * 每次响应创建一个实例，非线程安全。
+ */
+public class BinaryFrameWriter {
+
+    /**
+     * 输出格式
+     */
+    public enum Format {
+        MULTIPART,
+        ZIP
+    }
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Format format;
+    private final String extension;
+    private final String imageContentType;
+    private final String boundary = "frame-" + UUID.randomUUID();
+    private final List<FrameExtractionResponse.FrameData> writtenFrames = new ArrayList<>();
+
+    private OutputStream outputStream;
+    private ZipOutputStream zipOutput;
+
+    public BinaryFrameWriter(Format format, String outputFormat) {
+        this.format = format;
+        String normalized = outputFormat.toLowerCase(Locale.ROOT);
+        this.extension = "jpeg".equals(normalized) ? "jpg" : normalized;
+        this.imageContentType = "jpg".equals(extension) ? "image/jpeg" : "image/" + extension;
+    }
+
+    /**
+     * 帧图片的文件名，如 frame_000012.jpg
+     */
+    public static String frameFileName(int frameNumber, String outputFormat) {
+        String normalized = outputFormat.toLowerCase(Locale.ROOT);
+        String extension = "jpeg".equals(normalized) ? "jpg" : normalized;
+        return String.format(Locale.ROOT, "frame_%06d.%s", frameNumber, extension);
+    }
+
+    /**
+     * 响应的 Content-Type
+     */
+    public String getContentType() {
+        return format == Format.ZIP ? "application/zip" : "multipart/mixed; boundary=" + boundary;
+    }
+
+    /**
+     * 已写出的帧（不含图片数据），用于生成清单
+     */
+    public List<FrameExtractionResponse.FrameData> getWrittenFrames() {
+        return writtenFrames;
+    }
+
+    /**
+     * 开始写入响应输出流
+     */
+    public void start(OutputStream outputStream) {
+        this.outputStream = outputStream;
+        if (format == Format.ZIP) {
+            zipOutput = new ZipOutputStream(outputStream);
+        }
+    }
+
+    /**
+     * 写出一帧，写出后释放帧数据中的图片字节
+     */
+    public void writeFrame(FrameExtractionResponse.FrameData frameData) throws IOException {
+        byte[] data = frameData.getImageData();
+        String fileName = frameFileName(frameData.getFrameNumber(), extension);
+        frameData.setFileName(fileName);
+        frameData.setImageData(null);
+
+        if (format == Format.ZIP) {
+            writeZipEntry(fileName, data);
+            writtenFrames.add(frameData);
+        } else {
+            StringBuilder headers = new StringBuilder();
+            headers.append("--").append(boundary).append("\r\n")
+                .append("Content-Type: ").append(imageContentType).append("\r\n")
+                .append("Content-Length: ").append(data.length).append("\r\n")
+                .append("Content-Disposition: attachment; filename=\"").append(fileName).append("\"\r\n")
+                .append("X-Frame-Number: ").append(frameData.getFrameNumber()).append("\r\n")
+                .append("X-Timestamp-Seconds: ").append(frameData.getTimestampSeconds()).append("\r\n")
+                .append("X-Frame-Width: ").append(frameData.getWidth()).append("\r\n")
+                .append("X-Frame-Height: ").append(frameData.getHeight()).append("\r\n\r\n");
+            outputStream.write(headers.toString().getBytes(StandardCharsets.US_ASCII));
+            outputStream.write(data);
+            outputStream.write(CRLF);
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * 写出汇总（multipart 的最后一个部分，或ZIP中的 frames.json）并结束响应
+     */
+    public void finish(byte[] summaryJson) throws IOException {
+        if (format == Format.ZIP) {
+            writeZipEntry("frames.json", summaryJson);
+            zipOutput.finish();
+        } else {
+            String headers = "--" + boundary + "\r\n"
+                + "Content-Type: application/json; charset=UTF-8\r\n"
+                + "Content-Length: " + summaryJson.length + "\r\n"
+                + "Content-Disposition: inline; name=\"summary\"\r\n\r\n";
+            outputStream.write(headers.getBytes(StandardCharsets.US_ASCII));
+            outputStream.write(summaryJson);
+            outputStream.write(CRLF);
+            outputStream.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * 写出ZIP条目：已压缩的图片格式直接存储，bmp与清单使用deflate压缩
+     */
+    private void writeZipEntry(String name, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        if (name.endsWith(".bmp") || name.endsWith(".json")) {
+            entry.setMethod(ZipEntry.DEFLATED);
+        } else {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zipOutput.putNextEntry(entry);
+        zipOutput.write(data);
+        zipOutput.closeEntry();
+    }
+}
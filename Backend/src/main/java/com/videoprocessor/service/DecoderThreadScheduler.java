@@ -0,0 +1,134 @@
+package com.videoprocessor.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 解码器线程分配
+ * 通过grabber的解码器选项（threads、thread_type）控制FFmpeg的帧级/片级多线程解码。
+ * 未固定线程数时按同时打开的解码器数自适应分配：空闲时单个请求获得全部线程以降低延迟，
+ * 并发多时每个解码器分得更少的线程，使所有解码器的线程总数保持在 total-threads（默认CPU核数）附近。
+ * 线程数在解码器打开时确定，之后不再调整；为避免持续高负载时恰好单独到达的请求占用全部线程，
+ * 平均份额按当前与近期（滑动平均）解码器数中的较大者计算。
+ */
+@Component
+public class DecoderThreadScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecoderThreadScheduler.class);
+
+    // 每个解码器的线程数，0表示自适应分配
+    @Value("${video.processor.decoder.threads:0}")
+    private int fixedThreads;
+
+    // 自适应分配时所有解码器的线程总数，0表示CPU核数
+    @Value("${video.processor.decoder.total-threads:0}")
+    private int totalThreads;
+
+    // 自适应分配时单个解码器的线程数上限
+    @Value("${video.processor.decoder.max-threads:8}")
+    private int maxThreads;
+
+    // FFmpeg thread_type：frame、slice 或 frame+slice，为空时使用解码器默认值
+    @Value("${video.processor.decoder.thread-type:}")
+    private String threadType;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private int activeDecoders;
+    private int allocatedThreads;
+    // 近期同时打开的解码器数（每次分配与归还时更新的指数滑动平均）
+    private double recentDecoders;
+
+    @PostConstruct
+    public void init() {
+        if (totalThreads <= 0) {
+            totalThreads = Runtime.getRuntime().availableProcessors();
+        }
+        Gauge.builder("video.decoder.active", this, scheduler -> scheduler.getActiveDecoders())
+            .description("已打开的解码器数")
+            .register(registry);
+        Gauge.builder("video.decoder.threads", this, scheduler -> scheduler.getAllocatedThreads())
+            .description("已分配给解码器的线程总数")
+            .register(registry);
+        logger.info("解码线程: {}，thread_type: {}", fixedThreads > 0 ? "每个解码器 " + fixedThreads
+            : "自适应，总数 " + totalThreads + "，单个上限 " + maxThreads, threadType.isEmpty() ? "默认" : threadType);
+    }
+
+    /**
+     * 为即将打开的解码器分配线程并设置grabber选项，须在 grabber.start() 之前调用
+     * 返回的租约在grabber关闭时一并关闭以归还线程
+     */
+    public Lease configure(FFmpegFrameGrabber grabber) {
+        int threads = allocate();
+        grabber.setVideoOption("threads", String.valueOf(threads));
+        if (!threadType.isEmpty()) {
+            grabber.setVideoOption("thread_type", threadType);
+        }
+        logger.debug("解码器分配 {} 个线程", threads);
+        return new Lease(threads);
+    }
+
+    /**
+     * 按解码器数取平均份额，且不超过剩余线程数；每个解码器至少1个线程
+     */
+    private synchronized int allocate() {
+        activeDecoders++;
+        recentDecoders = recentDecoders * 0.8 + activeDecoders * 0.2;
+        int threads;
+        if (fixedThreads > 0) {
+            threads = fixedThreads;
+        } else {
+            int fairShare = (int) (totalThreads / Math.max(activeDecoders, recentDecoders));
+            int available = totalThreads - allocatedThreads;
+            threads = Math.max(1, Math.min(maxThreads, Math.min(fairShare, available)));
+        }
+        allocatedThreads += threads;
+        return threads;
+    }
+
+    private synchronized void release(int threads) {
+        activeDecoders--;
+        allocatedThreads -= threads;
+        recentDecoders = recentDecoders * 0.8 + activeDecoders * 0.2;
+    }
+
+    public synchronized int getActiveDecoders() {
+        return activeDecoders;
+    }
+
+    public synchronized int getAllocatedThreads() {
+        return allocatedThreads;
+    }
+
+    /**
+     * 解码器占用的线程，重复关闭无效
+     */
+    public class Lease implements AutoCloseable {
+        private final int threads;
+        private boolean closed;
+
+        private Lease(int threads) {
+            this.threads = threads;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(threads);
+            }
+        }
+    }
+}
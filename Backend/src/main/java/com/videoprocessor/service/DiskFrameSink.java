@@ -0,0 +1,37 @@
+package com.videoprocessor.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 将帧图片写入本地目录
+ * 每帧一个文件，通过 FileChannel 直接写入堆内字节，不经过缓冲流；文件已存在时写入失败而不覆盖。
+ */
+public class DiskFrameSink implements FrameSink {
+
+    private final Path directory;
+
+    public DiskFrameSink(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath();
+    }
+
+    @Override
+    public String locationOf(String fileName) {
+        return directory.resolve(fileName).toString();
+    }
+
+    @Override
+    public void write(String fileName, byte[] data) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve(fileName),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.ExtractionJob;
+import com.videoprocessor.model.FrameExtractionRequest;
+import com.videoprocessor.model.FrameExtractionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步帧提取任务服务
+ * 上传文件在请求线程中保存后立即返回任务ID，提取在独立的有界线程池中执行；
+ * 队列已满时拒绝提交，任务结束后结果保留 result-ttl-minutes 分钟；
+ * 保留的结果总大小超过 max-result-size 时提前清除最早结束的任务。
+ */
+@Service
+public class ExtractionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionJobService.class);
+
+    @Autowired
+    private VideoProcessorService videoProcessorService;
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ExecutorService jobExecutor;
+
+    @Value("${video.processor.jobs.result-ttl-minutes:30}")
+    private long resultTtlMinutes;
+
+    @Value("${video.processor.jobs.max-result-size:512MB}")
+    private DataSize maxResultSize;
+
+    private final Map<String, JobHandle> jobs = new ConcurrentHashMap<>();
+
+    // 保留了结果的任务，按结束顺序排列
+    private final Map<String, JobHandle> retainedResults = new LinkedHashMap<>();
+    private long retainedResultBytes;
+
+    /**
+     * 提交提取任务，可上传视频文件或通过 videoId 引用已缓存的视频
+     * 线程池队列已满时抛出 RejectedExecutionException
+     */
+    public ExtractionJob submit(MultipartFile videoFile, String videoId, FrameExtractionRequest request)
+            throws IOException {
+        if (videoId == null && !videoProcessorService.isValidVideoFormat(videoFile.getOriginalFilename())) {
+            throw new IllegalArgumentException("不支持的视频格式");
+        }
+
+        VideoSource source = videoProcessorService.openVideo(videoFile, videoId);
+        ExtractionJob job = new ExtractionJob(UUID.randomUUID().toString(), source.getOriginalFilename());
+        JobHandle handle = new JobHandle(job, request, source);
+        jobs.put(job.getJobId(), handle);
+
+        try {
+            handle.future = jobExecutor.submit(() -> runJob(handle));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            source.close();
+            logger.warn("任务队列已满，拒绝提交: {}", source.getOriginalFilename());
+            throw e;
+        }
+
+        logger.info("提取任务已提交: {}", job);
+        return job;
+    }
+
+    /**
+     * 查询任务状态，不存在或已过期时返回null
+     */
+    public ExtractionJob getJob(String jobId) {
+        JobHandle handle = jobs.get(jobId);
+        return handle != null ? handle.job : null;
+    }
+
+    /**
+     * 获取任务结果，任务未成功完成或已被清除时返回null
+     */
+    public FrameExtractionResponse getResult(String jobId) {
+        JobHandle handle = jobs.get(jobId);
+        return handle != null ? handle.result : null;
+    }
+
+    /**
+     * 取消任务，不存在时返回null；已结束的任务保持原状态
+     */
+    public ExtractionJob cancel(String jobId) {
+        JobHandle handle = jobs.get(jobId);
+        if (handle == null) {
+            return null;
+        }
+
+        synchronized (handle) {
+            if (isFinished(handle.job)) {
+                return handle.job;
+            }
+            handle.cancelled = true;
+            if (handle.job.getStatus() == ExtractionJob.Status.QUEUED) {
+                // 尚未开始执行的任务直接结束，并清理上传的临时文件
+                finish(handle, ExtractionJob.Status.CANCELLED, "任务已取消");
+                handle.source.close();
+            }
+        }
+
+        Future<?> future = handle.future;
+        if (future != null) {
+            future.cancel(true);
+        }
+        logger.info("提取任务已取消: {}", handle.job);
+        return handle.job;
+    }
+
+    /**
+     * 定期清除结果已过期的任务
+     */
+    @Scheduled(fixedDelayString = "${video.processor.jobs.cleanup-interval-ms:60000}")
+    public void evictExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(handle -> {
+            Long expiresAt = handle.job.getExpiresAt();
+            if (expiresAt == null || expiresAt > now) {
+                return false;
+            }
+            releaseResult(handle);
+            return true;
+        });
+    }
+
+    /**
+     * 在任务线程中执行提取
+     */
+    private void runJob(JobHandle handle) {
+        ExtractionJob job = handle.job;
+        synchronized (handle) {
+            if (handle.cancelled) {
+                return;
+            }
+            job.setStatus(ExtractionJob.Status.RUNNING);
+            job.setStartedAt(System.currentTimeMillis());
+        }
+
+        try {
+            FrameExtractionResponse response = videoProcessorService.extractFrames(handle.source, handle.request,
+                videoInfo -> {
+                    job.setVideoInfo(videoInfo);
+                    job.setEstimatedTotalFrames(
+                        videoProcessorService.estimateFrameCount(handle.request, videoInfo));
+                },
+                frameData -> job.setFramesExtracted(job.getFramesExtracted() + 1));
+
+            synchronized (handle) {
+                if (handle.cancelled) {
+                    finish(handle, ExtractionJob.Status.CANCELLED, "任务已取消");
+                } else if (response.isSuccess()) {
+                    long resultBytes = estimateResultBytes(response);
+                    if (resultBytes > maxResultSize.toBytes()) {
+                        finish(handle, ExtractionJob.Status.FAILED, "结果大小 " + resultBytes
+                            + " 字节超过保留上限 " + maxResultSize.toBytes() + " 字节，请使用流式接口提取");
+                    } else {
+                        handle.result = response;
+                        finish(handle, ExtractionJob.Status.COMPLETED, response.getMessage());
+                        retainResult(handle, resultBytes);
+                    }
+                } else {
+                    finish(handle, ExtractionJob.Status.FAILED, response.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("提取任务执行失败: {}", e.getMessage(), e);
+            synchronized (handle) {
+                finish(handle, ExtractionJob.Status.FAILED, "任务执行失败: " + e.getMessage());
+            }
+        } finally {
+            handle.source.close();
+        }
+        logger.info("提取任务结束: {}", job);
+    }
+
+    private void finish(JobHandle handle, ExtractionJob.Status status, String message) {
+        long now = System.currentTimeMillis();
+        handle.job.setStatus(status);
+        handle.job.setMessage(message);
+        handle.job.setFinishedAt(now);
+        handle.job.setExpiresAt(now + resultTtlMinutes * 60 * 1000);
+    }
+
+    /**
+     * 记录保留的结果，总大小超过上限时清除最早结束的任务（与过期相同，之后查询返回404）
+     */
+    private synchronized void retainResult(JobHandle handle, long resultBytes) {
+        handle.resultBytes = resultBytes;
+        retainedResults.put(handle.job.getJobId(), handle);
+        retainedResultBytes += resultBytes;
+
+        Iterator<JobHandle> iterator = retainedResults.values().iterator();
+        while (retainedResultBytes > maxResultSize.toBytes() && iterator.hasNext()) {
+            JobHandle oldest = iterator.next();
+            if (oldest == handle) {
+                continue;
+            }
+            iterator.remove();
+            retainedResultBytes -= oldest.resultBytes;
+            oldest.result = null;
+            jobs.remove(oldest.job.getJobId());
+            logger.info("保留的结果超过 {} 字节，提前清除任务: {}", maxResultSize.toBytes(), oldest.job);
+        }
+    }
+
+    private synchronized void releaseResult(JobHandle handle) {
+        if (retainedResults.remove(handle.job.getJobId()) != null) {
+            retainedResultBytes -= handle.resultBytes;
+        }
+    }
+
+    /**
+     * 估算结果占用的内存：Base64字符串按每字符一字节，加上二进制图片数据
+     */
+    private long estimateResultBytes(FrameExtractionResponse response) {
+        long bytes = 0;
+        if (response.getFrames() != null) {
+            for (FrameExtractionResponse.FrameData frame : response.getFrames()) {
+                if (frame.getBase64Data() != null) {
+                    bytes += frame.getBase64Data().length();
+                }
+                if (frame.getImageData() != null) {
+                    bytes += frame.getImageData().length;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private boolean isFinished(ExtractionJob job) {
+        return job.getFinishedAt() != null;
+    }
+
+    /**
+     * 任务内部状态：对外的状态模型之外，还持有请求参数、视频源、执行句柄与结果
+     */
+    private static class JobHandle {
+        private final ExtractionJob job;
+        private final FrameExtractionRequest request;
+        private final VideoSource source;
+        private volatile Future<?> future;
+        private volatile FrameExtractionResponse result;
+        private long resultBytes;
+        private boolean cancelled;
+
+        private JobHandle(ExtractionJob job, FrameExtractionRequest request, VideoSource source) {
+            this.job = job;
+            this.request = request;
+            this.source = source;
+        }
+    }
+}
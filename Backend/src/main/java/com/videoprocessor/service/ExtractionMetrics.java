@@ -0,0 +1,144 @@
+package com.videoprocessor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 帧提取指标（Micrometer），通过 Actuator 的 /actuator/prometheus 导出
+ * video.extraction.stage：各阶段耗时（按 stage 标签区分，带直方图）
+ * video.extraction.duration：单次提取的总耗时（按 mode、outcome 标签区分）
+ * video.extraction.frames、video.extraction.encoded.bytes：输出的帧数与编码的图片字节数
+ * video.extraction.active：进行中的提取数；video.temp.dir.bytes：临时目录占用的磁盘空间；
+ * 各线程池的排队与活动线程数见 executor.* 指标（按 name 标签区分）
+ */
+@Component
+public class ExtractionMetrics {
+
+    @Value("${video.processor.temp-dir:${java.io.tmpdir}/video-processor}")
+    private String tempDir;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    @Qualifier("segmentExecutor")
+    private ExecutorService segmentExecutor;
+
+    @Autowired
+    @Qualifier("encodeExecutor")
+    private ExecutorService encodeExecutor;
+
+    @Autowired
+    @Qualifier("batchExecutor")
+    private ExecutorService batchExecutor;
+
+    @Autowired
+    @Qualifier("sinkExecutor")
+    private ExecutorService sinkExecutor;
+
+    @Autowired
+    @Qualifier("jobExecutor")
+    private ExecutorService jobExecutor;
+
+    private final AtomicInteger activeExtractions = new AtomicInteger();
+    private final Timer[] stageTimers = new Timer[ExtractionTimings.Stage.values().length];
+    private Counter frames;
+    private Counter encodedBytes;
+
+    @PostConstruct
+    public void init() {
+        for (ExtractionTimings.Stage stage : ExtractionTimings.Stage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("video.extraction.stage")
+                .description("帧提取各阶段耗时")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(registry);
+        }
+        frames = Counter.builder("video.extraction.frames")
+            .description("输出的帧数")
+            .register(registry);
+        encodedBytes = Counter.builder("video.extraction.encoded.bytes")
+            .description("编码输出的图片字节数")
+            .baseUnit("bytes")
+            .register(registry);
+        Gauge.builder("video.extraction.active", activeExtractions, AtomicInteger::get)
+            .description("进行中的提取数")
+            .register(registry);
+        Gauge.builder("video.temp.dir.bytes", this, ExtractionMetrics::tempDirBytes)
+            .description("临时目录（上传文件、视频缓存）占用的磁盘空间")
+            .baseUnit("bytes")
+            .register(registry);
+
+        new ExecutorServiceMetrics(segmentExecutor, "video-segment", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(encodeExecutor, "video-encode", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(batchExecutor, "video-batch", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(sinkExecutor, "video-sink", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(jobExecutor, "video-job", Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * 创建记录一次提取各阶段耗时的对象
+     */
+    public ExtractionTimings newTimings() {
+        return new ExtractionTimings(stageTimers, frames, encodedBytes);
+    }
+
+    public void extractionStarted() {
+        activeExtractions.incrementAndGet();
+    }
+
+    /**
+     * 结束一次提取，记录总耗时
+     */
+    public void extractionFinished(String mode, boolean success, long durationMs) {
+        activeExtractions.decrementAndGet();
+        Timer.builder("video.extraction.duration")
+            .description("单次提取的总耗时")
+            .tag("mode", mode.toLowerCase(Locale.ROOT))
+            .tag("outcome", success ? "success" : "failure")
+            .register(registry)
+            .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 临时目录下所有文件的大小之和，抓取指标时计算
+     */
+    private double tempDirBytes() {
+        Path dir = Paths.get(tempDir);
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.mapToLong(path -> {
+                try {
+                    return Files.isRegularFile(path) ? Files.size(path) : 0;
+                } catch (IOException e) {
+                    // 统计期间被删除的文件
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException | UncheckedIOException e) {
+            return Double.NaN;
+        }
+    }
+}
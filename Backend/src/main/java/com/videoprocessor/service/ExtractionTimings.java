@@ -0,0 +1,91 @@
+package com.videoprocessor.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单次提取的分阶段耗时
+ * 各阶段耗时在解码、编码、输出线程中累加，同时记录到全局的阶段计时器（见 ExtractionMetrics）。
+ * 编码与输出由多个线程并行完成，累加的是各线程耗时之和，可能大于提取的总耗时。
+ */
+public class ExtractionTimings {
+
+    /**
+     * 提取阶段
+     */
+    public enum Stage {
+        // 保存上传文件到临时文件
+        UPLOAD,
+        // 打开视频并探测流信息（grabber.start）
+        OPEN,
+        // 跳转到指定时间（包括跳转后解码到目标时间的帧）
+        SEEK,
+        // 解码并转换像素格式、缩放（grabImage）
+        DECODE,
+        // 图片编码
+        ENCODE,
+        // base64编码
+        BASE64,
+        // 写入磁盘或对象存储
+        WRITE
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final Timer[] timers;
+    private final Counter frames;
+    private final Counter encodedBytes;
+    private final LongAdder[] nanos = new LongAdder[STAGES.length];
+
+    ExtractionTimings(Timer[] timers, Counter frames, Counter encodedBytes) {
+        this.timers = timers;
+        this.frames = frames;
+        this.encodedBytes = encodedBytes;
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录从 startNanos（System.nanoTime）到现在的耗时
+     */
+    public void record(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        nanos[stage.ordinal()].add(elapsed);
+        timers[stage.ordinal()].record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录输出一帧
+     */
+    public void addFrame() {
+        frames.increment();
+    }
+
+    /**
+     * 记录编码输出的图片字节数
+     */
+    public void addEncodedBytes(long bytes) {
+        encodedBytes.increment(bytes);
+    }
+
+    /**
+     * 各阶段累计耗时（毫秒），按阶段顺序排列，没有耗时的阶段不列出
+     */
+    public Map<String, Double> toMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (Stage stage : STAGES) {
+            long total = nanos[stage.ordinal()].sum();
+            if (total > 0) {
+                millis.put(stage.name().toLowerCase(Locale.ROOT), Math.round(total / 100_000.0) / 10.0);
+            }
+        }
+        return millis;
+    }
+}
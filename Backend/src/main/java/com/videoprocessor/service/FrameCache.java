@@ -0,0 +1,224 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已编码帧缓存
+ * 以 (视频ID, 时间点, 输出格式, 图片质量, 输出尺寸与像素格式) 为键缓存编码后的图片字节，数据保存在堆外内存中，
+ * 总字节数超过上限时按最近最少使用淘汰。只缓存按间隔提取的帧，同一视频重复或重叠的请求不必再次解码与编码。
+ * 堆外内存按需分配为固定大小的块（slab），总量不超过上限；每帧占用若干个块，淘汰时块立即归还空闲列表供后续复用，
+ * 不依赖GC回收堆外缓冲区。
+ */
+@Component
+public class FrameCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameCache.class);
+
+    // 分配单位，一帧占用 ceil(长度 / BLOCK_BYTES) 个块
+    private static final int BLOCK_BYTES = 16 * 1024;
+
+    // 每次向系统申请的堆外内存
+    private static final int SLAB_BYTES = 4 * 1024 * 1024;
+
+    private static final int BLOCKS_PER_SLAB = SLAB_BYTES / BLOCK_BYTES;
+
+    @Value("${video.processor.frame-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.processor.frame-cache.max-size:256MB}")
+    private DataSize maxSize;
+
+    // 按访问顺序排列，最久未使用的在最前
+    private final LinkedHashMap<String, CachedFrame> frames = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long totalBytes;
+
+    // 已分配的slab，块 b 位于 slabs[b / BLOCKS_PER_SLAB] 的 (b % BLOCKS_PER_SLAB) * BLOCK_BYTES 处
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int allocatedBlocks;
+
+    // 空闲块的栈
+    private int[] freeBlocks = new int[BLOCKS_PER_SLAB];
+    private int freeBlockCount;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 生成一次提取请求的缓存键前缀，视频未缓存或缓存未启用时返回null
+     * variant 区分同一视频的不同解码输出（尺寸、像素格式）
+     */
+    public String keyPrefix(String videoId, String outputFormat, int quality, String variant) {
+        if (!enabled || videoId == null) {
+            return null;
+        }
+        return videoId + ":" + outputFormat.toLowerCase(Locale.ROOT) + ":" + quality + ":" + variant + "@";
+    }
+
+    /**
+     * 查找指定时间点的帧，命中时返回带图片字节的新帧数据（帧序号与base64编码由调用方处理），未命中返回null
+     */
+    public FrameExtractionResponse.FrameData get(String keyPrefix, long timestampMs) {
+        CachedFrame cached;
+        byte[] bytes;
+        synchronized (this) {
+            cached = frames.get(keyPrefix + timestampMs);
+            if (cached == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            // 淘汰后块会被复用，在锁内复制
+            bytes = new byte[cached.length];
+            for (int i = 0, offset = 0; offset < cached.length; i++, offset += BLOCK_BYTES) {
+                int block = cached.blocks[i];
+                slabs.get(block / BLOCKS_PER_SLAB).get((block % BLOCKS_PER_SLAB) * BLOCK_BYTES, bytes, offset,
+                    Math.min(BLOCK_BYTES, cached.length - offset));
+            }
+        }
+        hits.incrementAndGet();
+
+        FrameExtractionResponse.FrameData frameData = new FrameExtractionResponse.FrameData(0, timestampMs / 1000.0,
+            null, cached.width, cached.height);
+        frameData.setImageData(bytes);
+        return frameData;
+    }
+
+    /**
+     * 缓存编码后的帧，单帧超过缓存上限时不缓存
+     */
+    public void put(String keyPrefix, long timestampMs, byte[] data, int length, int width, int height) {
+        int blockCount = (length + BLOCK_BYTES - 1) / BLOCK_BYTES;
+        if (blockCount > maxBlocks()) {
+            return;
+        }
+
+        synchronized (this) {
+            String key = keyPrefix + timestampMs;
+            CachedFrame previous = frames.remove(key);
+            if (previous != null) {
+                release(previous);
+            }
+            if (!reserveBlocks(blockCount)) {
+                return;
+            }
+
+            int[] blocks = new int[blockCount];
+            for (int i = 0, offset = 0; i < blockCount; i++, offset += BLOCK_BYTES) {
+                int block = freeBlocks[--freeBlockCount];
+                blocks[i] = block;
+                slabs.get(block / BLOCKS_PER_SLAB).put((block % BLOCKS_PER_SLAB) * BLOCK_BYTES, data, offset,
+                    Math.min(BLOCK_BYTES, length - offset));
+            }
+            frames.put(key, new CachedFrame(blocks, length, width, height));
+            totalBytes += length;
+            if (logger.isDebugEnabled()) {
+                logger.debug("帧缓存: {} 帧, {} 字节, 空闲块 {}", frames.size(), totalBytes, freeBlockCount);
+            }
+        }
+    }
+
+    /**
+     * 缓存统计信息：命中、未命中、淘汰次数与当前占用
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("maxBytes", maxSize.toBytes());
+        synchronized (this) {
+            stats.put("entries", frames.size());
+            stats.put("bytes", totalBytes);
+            stats.put("allocatedBytes", (long) allocatedBlocks * BLOCK_BYTES);
+        }
+        return stats;
+    }
+
+    private long maxBlocks() {
+        return maxSize.toBytes() / BLOCK_BYTES;
+    }
+
+    /**
+     * 确保空闲块不少于 blockCount：先从未分配的额度中申请新的slab，达到上限后淘汰最久未使用的帧
+     */
+    private boolean reserveBlocks(int blockCount) {
+        Iterator<CachedFrame> iterator = frames.values().iterator();
+        while (freeBlockCount < blockCount) {
+            if (allocatedBlocks < maxBlocks()) {
+                allocateSlab();
+            } else if (iterator.hasNext()) {
+                CachedFrame evicted = iterator.next();
+                iterator.remove();
+                release(evicted);
+                evictions.incrementAndGet();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void allocateSlab() {
+        // 最后一个slab可能不满 BLOCKS_PER_SLAB 个块，块号仍按slab序号计算
+        int blockCount = (int) Math.min(BLOCKS_PER_SLAB, maxBlocks() - allocatedBlocks);
+        int firstBlock = slabs.size() * BLOCKS_PER_SLAB;
+        slabs.add(ByteBuffer.allocateDirect(blockCount * BLOCK_BYTES));
+        allocatedBlocks += blockCount;
+        // 所有块都可能同时空闲
+        if (freeBlocks.length < allocatedBlocks) {
+            freeBlocks = Arrays.copyOf(freeBlocks, allocatedBlocks);
+        }
+        // 倒序入栈，同一slab内的块按顺序取出
+        for (int i = blockCount - 1; i >= 0; i--) {
+            freeBlocks[freeBlockCount++] = firstBlock + i;
+        }
+    }
+
+    /**
+     * 将帧占用的块归还空闲列表
+     */
+    private void release(CachedFrame cached) {
+        for (int block : cached.blocks) {
+            freeBlocks[freeBlockCount++] = block;
+        }
+        totalBytes -= cached.length;
+    }
+
+    /**
+     * 缓存的帧
+     */
+    private static class CachedFrame {
+        private final int[] blocks;
+        private final int length;
+        private final int width;
+        private final int height;
+
+        private CachedFrame(int[] blocks, int length, int width, int height) {
+            this.blocks = blocks;
+            this.length = length;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
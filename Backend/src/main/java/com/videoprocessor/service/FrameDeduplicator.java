@@ -0,0 +1,188 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionRequest;
+import org.bytedeco.javacv.Frame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 相似帧去重
+ * 编码前为每帧计算64位感知哈希（pHash）：取 32x32 的缩小亮度图做二维DCT，
+ * 最低频的 8x8 个系数（不含直流分量）与其中位数比较得到64位，对噪声、轻微移动不敏感，又能区分版面不同的画面。
+ * 与已保留帧的汉明距离不超过 maxDistance 的帧视为重复而丢弃：LAST 只与上一个保留帧比较，
+ * ALL 与所有保留帧比较（BK树查找，无需逐个比较）。
+ * 每次提取创建一个实例，只在解码线程中使用。
+ */
+public class FrameDeduplicator {
+
+    private static final int GRID = 32;
+    private static final int HASH_SIZE = 8;
+
+    // DCT-II 的余弦表：COSINES[u][x] = cos((2x + 1) * u * PI / (2 * GRID))，只需要最低的 HASH_SIZE 个频率
+    private static final double[][] COSINES = new double[HASH_SIZE][GRID];
+
+    static {
+        for (int u = 0; u < HASH_SIZE; u++) {
+            for (int x = 0; x < GRID; x++) {
+                COSINES[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * GRID));
+            }
+        }
+    }
+
+    private final FrameExtractionRequest.Dedup mode;
+    private final int maxDistance;
+    private final LumaGrid lumaGrid = new LumaGrid(GRID, GRID);
+    private final float[] means = new float[GRID * GRID];
+    // 行方向变换的中间结果 [v][x] 与最终的低频系数
+    private final double[] rowTransform = new double[HASH_SIZE * GRID];
+    private final double[] coefficients = new double[HASH_SIZE * HASH_SIZE];
+    private final double[] sorted = new double[HASH_SIZE * HASH_SIZE - 1];
+
+    private final BkTree keptHashes = new BkTree();
+    private boolean hasLast;
+    private long lastHash;
+    private int droppedFrames;
+
+    public FrameDeduplicator(FrameExtractionRequest.Dedup mode, int maxDistance) {
+        this.mode = mode;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * 判断该帧是否与已保留的帧重复，不重复时记为保留帧；无法计算哈希的帧总是保留
+     */
+    public boolean isDuplicate(Frame frame) {
+        if (!lumaGrid.compute(frame, means)) {
+            return false;
+        }
+        long hash = pHash();
+
+        boolean duplicate;
+        if (mode == FrameExtractionRequest.Dedup.ALL) {
+            duplicate = keptHashes.containsWithin(hash, maxDistance);
+            if (!duplicate) {
+                keptHashes.add(hash);
+            }
+        } else {
+            duplicate = hasLast && Long.bitCount(hash ^ lastHash) <= maxDistance;
+            if (!duplicate) {
+                hasLast = true;
+                lastHash = hash;
+            }
+        }
+
+        if (duplicate) {
+            droppedFrames++;
+        }
+        return duplicate;
+    }
+
+    /**
+     * 已丢弃的重复帧数
+     */
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    private long pHash() {
+        // 先沿列方向（y）变换得到 HASH_SIZE 行，再沿行方向（x）变换，只计算低频部分
+        for (int v = 0; v < HASH_SIZE; v++) {
+            double[] cosines = COSINES[v];
+            for (int x = 0; x < GRID; x++) {
+                double sum = 0;
+                for (int y = 0; y < GRID; y++) {
+                    sum += means[y * GRID + x] * cosines[y];
+                }
+                rowTransform[v * GRID + x] = sum;
+            }
+        }
+        for (int v = 0; v < HASH_SIZE; v++) {
+            for (int u = 0; u < HASH_SIZE; u++) {
+                double[] cosines = COSINES[u];
+                double sum = 0;
+                for (int x = 0; x < GRID; x++) {
+                    sum += rowTransform[v * GRID + x] * cosines[x];
+                }
+                coefficients[v * HASH_SIZE + u] = sum;
+            }
+        }
+
+        // 中位数不含直流分量（画面整体亮度）
+        System.arraycopy(coefficients, 1, sorted, 0, sorted.length);
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+
+        long hash = 0;
+        for (double coefficient : coefficients) {
+            hash <<= 1;
+            if (coefficient > median) {
+                hash |= 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * 以汉明距离为度量的BK树：每个子节点按与父节点的距离挂载，查找时由三角不等式只进入
+     * 距离在 [d - maxDistance, d + maxDistance] 内的子树
+     */
+    private static class BkTree {
+
+        private Node root;
+
+        void add(long hash) {
+            if (root == null) {
+                root = new Node(hash);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = Long.bitCount(hash ^ node.hash);
+                if (distance == 0) {
+                    return;
+                }
+                Node child = node.children[distance];
+                if (child == null) {
+                    node.children[distance] = new Node(hash);
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        boolean containsWithin(long hash, int maxDistance) {
+            if (root == null) {
+                return false;
+            }
+            List<Node> pending = new ArrayList<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                int distance = Long.bitCount(hash ^ node.hash);
+                if (distance <= maxDistance) {
+                    return true;
+                }
+                int from = Math.max(1, distance - maxDistance);
+                int to = Math.min(64, distance + maxDistance);
+                for (int d = from; d <= to; d++) {
+                    if (node.children[d] != null) {
+                        pending.add(node.children[d]);
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static class Node {
+            private final long hash;
+            // 按与本节点的汉明距离（1-64）索引的子节点
+            private final Node[] children = new Node[65];
+
+            private Node(long hash) {
+                this.hash = hash;
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionResponse;
+import org.bytedeco.javacv.Frame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 帧编码流水线
+ * 解码线程提交解码后的帧，编码线程池并行完成图像转换与编码，结果按提交顺序交给下游。
+ * 在途帧数量有上限，达到上限时解码线程阻塞等待最早的帧编码完成（背压），以此限制内存占用。
+ * 交给编码线程的帧副本在编码完成后归还复用，尺寸不变时不再为每帧分配图像内存。
+ * 设置了相似帧去重时，重复的帧在复制之前丢弃，不进入编码。
+ * 每次提取创建一个实例，非线程安全，只能由一个解码线程使用。
+ */
+public class FrameEncodePipeline {
+
+    /**
+     * 帧编码函数，输入为解码线程提交的帧副本
+     */
+    @FunctionalInterface
+    public interface FrameEncoder {
+        FrameExtractionResponse.FrameData encode(Frame frame, double timestampSeconds) throws Exception;
+    }
+
+    private final ExecutorService encodeExecutor;
+    private final int capacity;
+    private final FrameEncoder encoder;
+    private final Consumer<FrameExtractionResponse.FrameData> downstream;
+    private final Deque<Future<FrameExtractionResponse.FrameData>> inFlight = new ArrayDeque<>();
+    private final FrameDeduplicator deduplicator;
+
+    // 编码完成后归还的帧副本，由解码线程与编码线程共同访问
+    private final Deque<Frame> freeFrames = new ArrayDeque<>();
+    private boolean closed;
+
+    /**
+     * deduplicator 为null时不去重
+     */
+    public FrameEncodePipeline(ExecutorService encodeExecutor, int capacity, FrameEncoder encoder,
+            Consumer<FrameExtractionResponse.FrameData> downstream, FrameDeduplicator deduplicator) {
+        this.encodeExecutor = encodeExecutor;
+        this.capacity = Math.max(1, capacity);
+        this.encoder = encoder;
+        this.downstream = downstream;
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * 提交一帧进行编码
+     * grabber 会复用返回的 Frame，因此先复制一份再交给编码线程，编码完成后归还副本
+     */
+    public void submit(Frame frame, double timestampSeconds) throws Exception {
+        if (deduplicator != null && deduplicator.isDuplicate(frame)) {
+            return;
+        }
+        while (inFlight.size() >= capacity) {
+            drainHead();
+        }
+
+        Frame copy = copyFrame(frame);
+        inFlight.addLast(encodeExecutor.submit(() -> {
+            try {
+                return encoder.encode(copy, timestampSeconds);
+            } finally {
+                recycleFrame(copy);
+            }
+        }));
+    }
+
+    /**
+     * 提交已有结果的帧（例如缓存命中），与编码中的帧一起按提交顺序输出
+     */
+    public void submitCompleted(FrameExtractionResponse.FrameData frameData) throws Exception {
+        while (inFlight.size() >= capacity) {
+            drainHead();
+        }
+        inFlight.addLast(CompletableFuture.completedFuture(frameData));
+    }
+
+    /**
+     * 等待所有在途帧编码完成并按顺序输出
+     */
+    public void finish() throws Exception {
+        while (!inFlight.isEmpty()) {
+            drainHead();
+        }
+        releaseFrames();
+    }
+
+    /**
+     * 取消所有在途的编码任务
+     */
+    public void cancel() {
+        Future<FrameExtractionResponse.FrameData> future;
+        while ((future = inFlight.pollFirst()) != null) {
+            future.cancel(true);
+        }
+        releaseFrames();
+    }
+
+    /**
+     * 取出最早提交的帧，等待其编码完成后交给下游
+     */
+    private void drainHead() throws Exception {
+        Future<FrameExtractionResponse.FrameData> head = inFlight.pollFirst();
+        try {
+            downstream.accept(head.get());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 复制帧，优先复用已归还且尺寸与格式相同的副本，只复制图像数据
+     */
+    private Frame copyFrame(Frame frame) {
+        Frame copy;
+        synchronized (freeFrames) {
+            copy = freeFrames.pollFirst();
+        }
+        if (copy == null || !isReusable(copy, frame)) {
+            if (copy != null) {
+                copy.close();
+            }
+            return frame.clone();
+        }
+
+        ByteBuffer source = ((ByteBuffer) frame.image[0]).duplicate();
+        source.rewind();
+        ByteBuffer target = (ByteBuffer) copy.image[0];
+        target.clear();
+        target.put(source).rewind();
+        copy.timestamp = frame.timestamp;
+        copy.keyFrame = frame.keyFrame;
+        return copy;
+    }
+
+    private boolean isReusable(Frame copy, Frame frame) {
+        return frame.image != null && frame.image.length == 1 && frame.image[0] instanceof ByteBuffer
+            && copy.image != null && copy.image.length == 1
+            && copy.imageWidth == frame.imageWidth && copy.imageHeight == frame.imageHeight
+            && copy.imageDepth == frame.imageDepth && copy.imageChannels == frame.imageChannels
+            && copy.imageStride == frame.imageStride
+            && copy.image[0].capacity() == frame.image[0].capacity();
+    }
+
+    /**
+     * 归还编码完成的帧副本，流水线结束后归还的副本直接释放
+     */
+    private void recycleFrame(Frame copy) {
+        synchronized (freeFrames) {
+            if (!closed) {
+                freeFrames.addLast(copy);
+                return;
+            }
+        }
+        copy.close();
+    }
+
+    /**
+     * 释放所有已归还的帧副本，仍在编码中的副本由编码线程归还时释放
+     */
+    private void releaseFrames() {
+        synchronized (freeFrames) {
+            closed = true;
+            Frame copy;
+            while ((copy = freeFrames.pollFirst()) != null) {
+                copy.close();
+            }
+        }
+    }
+}
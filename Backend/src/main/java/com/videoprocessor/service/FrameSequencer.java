@@ -0,0 +1,34 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionResponse;
+
+import java.util.function.Consumer;
+
+/**
+ * 帧编号器
+ * 按时间顺序接收转换结果（转换失败的帧为null），统一分配帧序号后交给下游：
+ * 按间隔提取时序号只计算成功转换的帧，提取所有帧时转换失败的帧同样占用序号。
+ */
+public class FrameSequencer implements Consumer<FrameExtractionResponse.FrameData> {
+
+    private final boolean countFailedFrames;
+    private final Consumer<FrameExtractionResponse.FrameData> downstream;
+    private int frameNumber;
+
+    public FrameSequencer(boolean countFailedFrames, Consumer<FrameExtractionResponse.FrameData> downstream) {
+        this.countFailedFrames = countFailedFrames;
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(FrameExtractionResponse.FrameData frameData) {
+        if (frameData == null) {
+            if (countFailedFrames) {
+                frameNumber++;
+            }
+            return;
+        }
+        frameData.setFrameNumber(++frameNumber);
+        downstream.accept(frameData);
+    }
+}
@@ -0,0 +1,20 @@
+package com.videoprocessor.service;
+
+import java.io.IOException;
+
+/**
+ * 帧图片的持久化目标（磁盘目录或对象存储）
+ * 每次提取创建一个实例，帧写入该次提取独立的目录或前缀下；write 可能被多个输出线程并发调用。
+ */
+public interface FrameSink {
+
+    /**
+     * 帧图片写入后的位置（文件绝对路径或对象URL），写入前即可确定
+     */
+    String locationOf(String fileName);
+
+    /**
+     * 写入一帧图片
+     */
+    void write(String fileName, byte[] data) throws IOException;
+}
@@ -0,0 +1,106 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 帧输出存储
+ * 根据请求的输出位置创建帧写入器：DISK 写入输出目录下每次提取独立的子目录，
+ * S3 上传到配置的存储桶中每次提取独立的前缀下。输出的文件不会被服务自动清理。
+ */
+@Component
+public class FrameStorage {
+
+    @Value("${video.processor.output.dir:${video.processor.temp-dir:${java.io.tmpdir}/video-processor}/frames}")
+    private String outputDir;
+
+    @Value("${video.processor.output.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${video.processor.output.batch-size:16}")
+    private int batchSize;
+
+    @Value("${video.processor.output.max-pending:64}")
+    private int maxPending;
+
+    @Value("${video.processor.output.s3.endpoint:}")
+    private String s3Endpoint;
+
+    @Value("${video.processor.output.s3.bucket:}")
+    private String s3Bucket;
+
+    @Value("${video.processor.output.s3.region:us-east-1}")
+    private String s3Region;
+
+    @Value("${video.processor.output.s3.access-key:}")
+    private String s3AccessKey;
+
+    @Value("${video.processor.output.s3.secret-key:}")
+    private String s3SecretKey;
+
+    @Value("${video.processor.output.s3.prefix:frames/}")
+    private String s3Prefix;
+
+    @Autowired
+    @Qualifier("sinkExecutor")
+    private ExecutorService sinkExecutor;
+
+    private volatile HttpClient httpClient;
+
+    /**
+     * 是否已配置对象存储
+     */
+    public boolean isS3Configured() {
+        return !s3Endpoint.isEmpty() && !s3Bucket.isEmpty() && !s3AccessKey.isEmpty() && !s3SecretKey.isEmpty();
+    }
+
+    /**
+     * 为一次提取创建帧写入器，输出位置为 INLINE 时返回null；写入耗时记录到 timings
+     */
+    public AsyncFrameWriter openWriter(FrameExtractionRequest.Sink sink, ExtractionTimings timings)
+            throws IOException {
+        String runId = UUID.randomUUID().toString();
+        FrameSink frameSink;
+        switch (sink) {
+            case DISK:
+                frameSink = new DiskFrameSink(Paths.get(outputDir, runId));
+                break;
+            case S3:
+                if (!isS3Configured()) {
+                    throw new IOException("未配置对象存储");
+                }
+                frameSink = new S3FrameSink(getHttpClient(), s3Endpoint, s3Bucket, s3Region,
+                    s3AccessKey, s3SecretKey, s3Prefix + runId + "/");
+                break;
+            default:
+                return null;
+        }
+        return new AsyncFrameWriter(frameSink, sinkExecutor, batchSize, writerThreads, maxPending, timings);
+    }
+
+    private HttpClient getHttpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,366 @@
+package com.videoprocessor.service;
+
+import jakarta.annotation.PostConstruct;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.javacpp.Loader;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+import org.bytedeco.opencv.global.opencv_imgcodecs;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMWRITE_JPEG_QUALITY;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMWRITE_WEBP_QUALITY;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imencode;
+
+/**
+ * 图片编码器
+ * 将解码后的帧编码为 jpg/png/webp/bmp，并按 imageQuality 设置有损格式的压缩质量。
+ * 优先使用 OpenCV imencode 直接编码帧数据，不经过 BufferedImage，不可用时回退到 ImageIO；
+ * 每个线程持有独立的帧转换器、ImageWriter 与输出缓冲区，跨帧复用；base64 直接从复用缓冲区中的编码数据
+ * 写入同样复用的字符缓冲区，不复制编码数据，每帧只分配结果字符串。
+ * 帧转换器与 ImageWriter 内部有可变缓冲区，不能跨线程共享；本类可被任意多个线程并发调用，
+ * 编码只在固定大小的编码线程池中执行，线程私有上下文的数量随线程池大小而不是请求数增长。
+ */
+@Component
+public class ImageEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageEncoder.class);
+
+    // 支持的输出图片格式
+    public static final List<String> SUPPORTED_FORMATS = Arrays.asList("jpg", "jpeg", "png", "bmp", "webp");
+
+    // 可由 OpenCV 原生编码的格式
+    private static final List<String> NATIVE_FORMATS = Arrays.asList("jpg", "jpeg", "png", "webp", "bmp");
+
+    @Value("${video.processor.encoder.native-enabled:true}")
+    private boolean nativeEnabled;
+
+    private boolean nativeAvailable;
+
+    // 每个编码线程一份，不加锁
+    private final ThreadLocal<EncoderContext> contexts = ThreadLocal.withInitial(EncoderContext::new);
+
+    @PostConstruct
+    public void init() {
+        if (!nativeEnabled) {
+            return;
+        }
+        try {
+            Loader.load(opencv_imgcodecs.class);
+            nativeAvailable = true;
+        } catch (Throwable e) {
+            logger.warn("OpenCV原生编码不可用，使用ImageIO编码: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 判断是否支持指定的输出格式
+     */
+    public static boolean isSupportedFormat(String format) {
+        return format != null && SUPPORTED_FORMATS.contains(format.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 将帧编码为图片
+     * 返回结果引用当前线程的复用缓冲区，仅在同一线程下一次编码之前有效
+     */
+    public EncodedImage encode(Frame frame, String format, int quality) throws IOException {
+        String normalizedFormat = format.toLowerCase(Locale.ROOT);
+        if (!SUPPORTED_FORMATS.contains(normalizedFormat)) {
+            throw new IllegalArgumentException("不支持的图片格式: " + format);
+        }
+
+        EncoderContext context = contexts.get();
+        if (nativeAvailable && NATIVE_FORMATS.contains(normalizedFormat)) {
+            encodeNative(context, frame, normalizedFormat, quality);
+        } else {
+            encodeWithImageIO(context, frame, normalizedFormat, quality);
+        }
+        return context.result;
+    }
+
+    /**
+     * 使用 OpenCV imencode 编码，帧数据直接包装为 Mat，不经过 BufferedImage
+     */
+    private void encodeNative(EncoderContext context, Frame frame, String format, int quality) throws IOException {
+        Mat mat = context.matConverter.convert(frame);
+        String extension = "." + ("jpeg".equals(format) ? "jpg" : format);
+
+        boolean encoded;
+        if ("png".equals(format) || "bmp".equals(format)) {
+            encoded = imencode(extension, mat, context.nativeBuffer);
+        } else {
+            int qualityFlag = "webp".equals(format) ? IMWRITE_WEBP_QUALITY : IMWRITE_JPEG_QUALITY;
+            context.nativeParams.put(0, qualityFlag).put(1, quality);
+            encoded = imencode(extension, mat, context.nativeBuffer, context.nativeParams);
+        }
+        if (!encoded) {
+            throw new IOException("OpenCV编码失败: " + format);
+        }
+
+        int length = (int) context.nativeBuffer.limit();
+        byte[] data = context.output.ensureCapacity(length);
+        context.nativeBuffer.get(data, 0, length);
+        context.result.set(data, length);
+    }
+
+    /**
+     * 使用 ImageIO 编码，复用当前线程的 ImageWriter 与输出缓冲区
+     * 帧尺寸不变时 Java2DFrameConverter 复用同一个 BufferedImage，编码结果直接写入线程缓冲区
+     */
+    private void encodeWithImageIO(EncoderContext context, Frame frame, String format, int quality)
+            throws IOException {
+        BufferedImage image = context.java2DConverter.convert(frame);
+        if (image == null) {
+            throw new IOException("帧不包含图像数据");
+        }
+
+        ImageWriter writer = context.writer(format);
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (isLossy(format) && param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality / 100f);
+        }
+
+        context.imageOutput.clear();
+        try {
+            writer.setOutput(context.imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.setOutput(null);
+        }
+        context.result.set(context.imageOutput.buffer(), (int) context.imageOutput.length());
+    }
+
+    private boolean isLossy(String format) {
+        return "jpg".equals(format) || "jpeg".equals(format) || "webp".equals(format);
+    }
+
+    /**
+     * 编码结果，引用线程复用缓冲区
+     */
+    public static class EncodedImage {
+        private static final byte[] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.ISO_8859_1);
+
+        // 分块编码的块大小（3的倍数），从大到小使用
+        private static final int[] BASE64_CHUNK_BYTES = {12 * 1024, 384};
+
+        private final ReusableByteArrayOutputStream base64Output = new ReusableByteArrayOutputStream();
+        private final byte[][] base64Chunks = new byte[BASE64_CHUNK_BYTES.length][];
+        private final byte[][] base64EncodedChunks = new byte[BASE64_CHUNK_BYTES.length][];
+        private byte[] data;
+        private int length;
+
+        EncodedImage() {
+            for (int i = 0; i < BASE64_CHUNK_BYTES.length; i++) {
+                base64Chunks[i] = new byte[BASE64_CHUNK_BYTES[i]];
+                base64EncodedChunks[i] = new byte[BASE64_CHUNK_BYTES[i] / 3 * 4];
+            }
+        }
+
+        void set(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * 复制出独立的字节数组
+         */
+        public byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+
+        /**
+         * 编码为base64字符串（标准字母表，带填充），编码结果写入线程复用的缓冲区
+         * Base64.Encoder 只能编码整个数组，而复用缓冲区很少恰好被编码数据占满；这里按固定大小的块复制到复用的块数组后
+         * 编码，不复制整个编码数据，末尾不足最小块的字节按字母表逐组编码
+         */
+        public String toBase64() {
+            byte[] target = base64Output.ensureCapacity(4 * ((length + 2) / 3));
+            int source = 0;
+            int position = 0;
+            for (int i = 0; i < base64Chunks.length; i++) {
+                byte[] chunk = base64Chunks[i];
+                while (length - source >= chunk.length) {
+                    System.arraycopy(data, source, chunk, 0, chunk.length);
+                    int encodedLength = Base64.getEncoder().encode(chunk, base64EncodedChunks[i]);
+                    System.arraycopy(base64EncodedChunks[i], 0, target, position, encodedLength);
+                    source += chunk.length;
+                    position += encodedLength;
+                }
+            }
+            for (; source < length; source += 3) {
+                int remaining = length - source;
+                int bits = (data[source] & 0xff) << 16
+                    | (remaining > 1 ? (data[source + 1] & 0xff) << 8 : 0)
+                    | (remaining > 2 ? data[source + 2] & 0xff : 0);
+                target[position++] = BASE64_ALPHABET[bits >>> 18];
+                target[position++] = BASE64_ALPHABET[(bits >>> 12) & 0x3f];
+                target[position++] = remaining > 1 ? BASE64_ALPHABET[(bits >>> 6) & 0x3f] : (byte) '=';
+                target[position++] = remaining > 2 ? BASE64_ALPHABET[bits & 0x3f] : (byte) '=';
+            }
+            return new String(target, 0, position, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /**
+     * 可复用并可直接访问内部数组的字节输出流
+     */
+    static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+
+        ReusableByteArrayOutputStream() {
+            super(64 * 1024);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        /**
+         * 确保内部数组至少能容纳指定长度，并返回该数组
+         */
+        byte[] ensureCapacity(int length) {
+            if (buf.length < length) {
+                buf = new byte[Math.max(length, buf.length * 2)];
+            }
+            count = 0;
+            return buf;
+        }
+    }
+
+    /**
+     * 写入可复用字节数组的 ImageOutputStream
+     * 代替 MemoryCacheImageOutputStream，避免每帧分配缓存块并再复制到输出流；支持编码器回写文件头
+     */
+    static class ReusableImageOutputStream extends ImageOutputStreamImpl {
+
+        private byte[] buffer = new byte[64 * 1024];
+        private int length;
+
+        /**
+         * 清空内容，准备写入下一帧
+         * 字节序也恢复为默认的大端：BMP编码器会改为小端，不恢复时同一线程之后编码的PNG块长度会写反
+         */
+        void clear() {
+            length = 0;
+            streamPos = 0;
+            flushedPos = 0;
+            bitOffset = 0;
+            setByteOrder(ByteOrder.BIG_ENDIAN);
+        }
+
+        byte[] buffer() {
+            return buffer;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            flushBits();
+            ensureCapacity(streamPos + 1);
+            buffer[(int) streamPos++] = (byte) b;
+            length = Math.max(length, (int) streamPos);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            flushBits();
+            ensureCapacity(streamPos + len);
+            System.arraycopy(b, off, buffer, (int) streamPos, len);
+            streamPos += len;
+            length = Math.max(length, (int) streamPos);
+        }
+
+        @Override
+        public int read() throws IOException {
+            bitOffset = 0;
+            if (streamPos >= length) {
+                return -1;
+            }
+            return buffer[(int) streamPos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            bitOffset = 0;
+            if (streamPos >= length) {
+                return -1;
+            }
+            int count = Math.min(len, length - (int) streamPos);
+            System.arraycopy(buffer, (int) streamPos, b, off, count);
+            streamPos += count;
+            return count;
+        }
+
+        private void ensureCapacity(long required) throws IOException {
+            if (required > Integer.MAX_VALUE - 8) {
+                throw new IOException("编码结果过大");
+            }
+            if (buffer.length < required) {
+                buffer = Arrays.copyOf(buffer, (int) Math.max(required, Math.min(Integer.MAX_VALUE - 8L,
+                    buffer.length * 2L)));
+            }
+        }
+    }
+
+    /**
+     * 线程私有的编码上下文
+     */
+    private static class EncoderContext {
+        private final Java2DFrameConverter java2DConverter = new Java2DFrameConverter();
+        private final OpenCVFrameConverter.ToMat matConverter = new OpenCVFrameConverter.ToMat();
+        private final Map<String, ImageWriter> writers = new HashMap<>();
+        private final ReusableByteArrayOutputStream output = new ReusableByteArrayOutputStream();
+        private final ReusableImageOutputStream imageOutput = new ReusableImageOutputStream();
+        private final BytePointer nativeBuffer = new BytePointer();
+        private final IntPointer nativeParams = new IntPointer(2);
+        private final EncodedImage result = new EncodedImage();
+
+        private ImageWriter writer(String format) {
+            return writers.computeIfAbsent(format, key -> {
+                Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(key);
+                if (!iterator.hasNext()) {
+                    throw new IllegalArgumentException("没有可用的图片编码器: " + key);
+                }
+                return iterator.next();
+            });
+        }
+    }
+}
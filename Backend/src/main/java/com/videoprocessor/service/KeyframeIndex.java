@@ -0,0 +1,64 @@
+package com.videoprocessor.service;
+
+import java.util.Arrays;
+
+/**
+ * 视频关键帧索引
+ * 关键帧时间以微秒表示（相对视频开始），用于估算GOP长度；
+ * 完整的索引包含全部关键帧的显示时间，还可以查找指定时间点之前最近的关键帧。
+ * 由容器索引或只读取开头一部分数据包得到的索引只用于估算GOP长度。
+ */
+public class KeyframeIndex {
+
+    private final long[] keyframeTimesUs;
+    private final long durationUs;
+    private final boolean complete;
+
+    public KeyframeIndex(long[] keyframeTimesUs, long durationUs) {
+        this(keyframeTimesUs, durationUs, true);
+    }
+
+    /**
+     * @param durationUs 这些关键帧覆盖的时长，平均GOP长度为时长除以关键帧数
+     * @param complete   是否包含视频中全部关键帧的显示时间
+     */
+    public KeyframeIndex(long[] keyframeTimesUs, long durationUs, boolean complete) {
+        this.keyframeTimesUs = keyframeTimesUs.clone();
+        Arrays.sort(this.keyframeTimesUs);
+        this.durationUs = durationUs;
+        this.complete = complete;
+    }
+
+    public int getKeyframeCount() {
+        return keyframeTimesUs.length;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * 平均GOP长度（微秒），没有关键帧时返回-1
+     */
+    public long getAverageGopUs() {
+        if (keyframeTimesUs.length == 0) {
+            return -1;
+        }
+        return Math.max(1, durationUs / keyframeTimesUs.length);
+    }
+
+    /**
+     * 查找指定时间点之前（含）最近的关键帧时间，不存在或索引不完整时返回-1
+     */
+    public long keyframeAtOrBefore(long timestampUs) {
+        if (!complete) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(keyframeTimesUs, timestampUs);
+        if (index >= 0) {
+            return keyframeTimesUs[index];
+        }
+        int insertionPoint = -index - 1;
+        return insertionPoint > 0 ? keyframeTimesUs[insertionPoint - 1] : -1;
+    }
+}
@@ -0,0 +1,73 @@
+package com.videoprocessor.service;
+
+import org.bytedeco.javacv.Frame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 缩小的亮度图
+ * 把画面划分为 columns x rows 个格子，按固定步长采样像素求各格平均亮度，每个格子在每个方向上至少采样约4个像素，
+ * 计算量与帧尺寸基本无关。用于场景变化检测与相似帧去重。
+ * 实例持有计算用的累加数组，只能由一个线程使用。
+ */
+public class LumaGrid {
+
+    // 每个格子在每个方向上至少采样的像素数
+    private static final int SAMPLES_PER_CELL = 4;
+
+    private final int columns;
+    private final int rows;
+    private final long[] sums;
+    private final int[] counts;
+
+    public LumaGrid(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.sums = new long[columns * rows];
+        this.counts = new int[columns * rows];
+    }
+
+    /**
+     * 计算各格平均亮度（0-255），按行优先写入 means；支持8位的BGR与灰度图像，其他格式返回false
+     */
+    public boolean compute(Frame frame, float[] means) {
+        int width = frame.imageWidth;
+        int height = frame.imageHeight;
+        int channels = frame.imageChannels;
+        if (frame.image == null || frame.imageDepth != Frame.DEPTH_UBYTE || width <= 0 || height <= 0
+                || (channels != 1 && channels != 3)) {
+            return false;
+        }
+
+        ByteBuffer data = (ByteBuffer) frame.image[0];
+        int stride = frame.imageStride;
+        int step = Math.max(1, Math.min(width / columns, height / rows) / SAMPLES_PER_CELL);
+
+        Arrays.fill(sums, 0);
+        Arrays.fill(counts, 0);
+        for (int y = 0; y < height; y += step) {
+            int rowOffset = y * stride;
+            int cellRow = y * rows / height * columns;
+            for (int x = 0; x < width; x += step) {
+                int offset = rowOffset + x * channels;
+                int luma;
+                if (channels == 1) {
+                    luma = data.get(offset) & 0xff;
+                } else {
+                    // BGR转亮度（BT.601，定点近似）
+                    luma = (29 * (data.get(offset) & 0xff) + 150 * (data.get(offset + 1) & 0xff)
+                        + 77 * (data.get(offset + 2) & 0xff)) >> 8;
+                }
+                int cell = cellRow + x * columns / width;
+                sums[cell] += luma;
+                counts[cell]++;
+            }
+        }
+
+        for (int i = 0; i < means.length; i++) {
+            means[i] = counts[i] > 0 ? (float) sums[i] / counts[i] : 0f;
+        }
+        return true;
+    }
+}
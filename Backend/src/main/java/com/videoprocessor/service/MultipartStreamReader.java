@@ -0,0 +1,77 @@
+package com.videoprocessor.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * multipart流式解析器
+ * 直接从请求输入流中解析各个部分，不经过Servlet容器的磁盘缓存：
+ * 读取文件部分之前的表单字段后，把文件部分的输入流原样交给调用方。
+ * 使用 commons-fileupload2 的流式接口；文件之后的表单字段不会被读取。
+ * 请求不能经过 MultipartResolver 解析，接口路径需登记在 WebConfig.STREAMING_UPLOAD_PATHS 中。
+ */
+@Component
+public class MultipartStreamReader {
+
+    // 单个表单字段的最大长度
+    private static final int MAX_FIELD_LENGTH = 8 * 1024;
+
+    @Value("${spring.servlet.multipart.max-file-size:1GB}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size:1GB}")
+    private DataSize maxRequestSize;
+
+    /**
+     * 解析到指定名称的文件部分为止
+     */
+    public StreamingUpload read(HttpServletRequest request, String fileFieldName) throws IOException {
+        StreamingUpload upload = readOptional(request, fileFieldName);
+        if (upload.getContent() == null) {
+            throw new IllegalArgumentException("视频文件不能为空");
+        }
+        return upload;
+    }
+
+    /**
+     * 解析到指定名称的文件部分为止，请求中没有该文件时返回只包含表单字段的上传（文件名与内容为null）
+     */
+    public StreamingUpload readOptional(HttpServletRequest request, String fileFieldName) throws IOException {
+        JakartaServletFileUpload<?, ?> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxRequestSize.toBytes());
+        upload.setFileSizeMax(maxFileSize.toBytes());
+
+        Map<String, String> fields = new HashMap<>();
+        FileItemInputIterator iterator = upload.getItemIterator(request);
+        while (iterator.hasNext()) {
+            FileItemInput item = iterator.next();
+            if (item.isFormField()) {
+                fields.put(item.getFieldName(), readField(item));
+            } else if (fileFieldName.equals(item.getFieldName())) {
+                return new StreamingUpload(fields, item.getName(), item.getInputStream());
+            }
+        }
+        return new StreamingUpload(fields, null, null);
+    }
+
+    private String readField(FileItemInput item) throws IOException {
+        try (InputStream in = item.getInputStream()) {
+            byte[] bytes = in.readNBytes(MAX_FIELD_LENGTH + 1);
+            if (bytes.length > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("表单字段过长: " + item.getFieldName());
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
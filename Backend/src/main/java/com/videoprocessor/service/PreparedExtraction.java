@@ -0,0 +1,81 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionRequest;
+import com.videoprocessor.model.FrameExtractionResponse;
+import com.videoprocessor.model.VideoInfo;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 已探测视频信息并通过准入控制、尚未开始解码的提取
+ * 持有视频源、已启动的grabber、解码线程与准入预算，由 VideoProcessorService 执行提取后关闭；
+ * 打开或探测失败时只包含失败响应。流式接口在返回响应之前完成这一步，准入被拒绝时可以直接返回503
+ */
+public class PreparedExtraction implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreparedExtraction.class);
+
+    final FrameExtractionRequest request;
+    final ExtractionTimings timings;
+    final long startTime;
+    final boolean allowSegments;
+    final boolean retainFrames;
+
+    VideoSource source;
+    boolean closeSource;
+    FFmpegFrameGrabber grabber;
+    DecoderThreadScheduler.Lease decoderThreads;
+    VideoInfo videoInfo;
+    boolean segmented;
+    AdmissionController.Permit permit;
+    FrameExtractionResponse failure;
+
+    PreparedExtraction(FrameExtractionRequest request, ExtractionTimings timings, long startTime,
+            boolean allowSegments, boolean retainFrames) {
+        this.request = request;
+        this.timings = timings;
+        this.startTime = startTime;
+        this.allowSegments = allowSegments;
+        this.retainFrames = retainFrames;
+    }
+
+    /**
+     * 打开或探测失败、准入被拒绝时的响应，准备成功时为null
+     */
+    public FrameExtractionResponse getFailure() {
+        return failure;
+    }
+
+    /**
+     * 提前归还解码线程（分段解码时探测用的grabber之后只查找关键帧）
+     */
+    void releaseDecoderThreads() {
+        if (decoderThreads != null) {
+            decoderThreads.close();
+        }
+    }
+
+    /**
+     * 依次释放准入预算、解码线程、grabber，以及由本对象打开的视频源，可重复调用
+     */
+    @Override
+    public void close() {
+        if (permit != null) {
+            permit.close();
+        }
+        releaseDecoderThreads();
+        if (grabber != null) {
+            try {
+                grabber.close();
+            } catch (Exception e) {
+                logger.warn("关闭视频解码器失败: {}", e.getMessage());
+            }
+            grabber = null;
+        }
+        if (closeSource && source != null) {
+            source.close();
+            source = null;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.videoprocessor.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 将帧图片上传到S3兼容的对象存储（AWS S3、MinIO等）
+ * 使用路径风格的地址 {endpoint}/{bucket}/{key}，每帧一次 PUT 请求，请求按 AWS Signature Version 4 签名。
+ */
+public class S3FrameSink implements FrameSink {
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final String HEX_DIGITS = "0123456789abcdef";
+
+    // 单帧上传的超时时间
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient httpClient;
+    private final String endpoint;
+    private final String host;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final String keyPrefix;
+
+    public S3FrameSink(HttpClient httpClient, String endpoint, String bucket, String region,
+            String accessKey, String secretKey, String keyPrefix) {
+        this.httpClient = httpClient;
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        URI uri = URI.create(this.endpoint);
+        // 与 HttpClient 发送的 Host 头一致：非默认端口时带端口号
+        this.host = uri.getPort() != -1 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public String locationOf(String fileName) {
+        return endpoint + objectPath(fileName);
+    }
+
+    @Override
+    public void write(String fileName, byte[] data) throws IOException {
+        String path = objectPath(fileName);
+        String payloadHash = hex(sha256(data));
+        String amzDate = ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE);
+
+        SortedMap<String, String> signedHeaders = new TreeMap<>();
+        signedHeaders.put("host", host);
+        signedHeaders.put("x-amz-content-sha256", payloadHash);
+        signedHeaders.put("x-amz-date", amzDate);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("x-amz-content-sha256", payloadHash)
+            .header("x-amz-date", amzDate)
+            .header("Authorization", authorization("PUT", path, "", signedHeaders, payloadHash, amzDate,
+                region, accessKey, secretKey))
+            .header("Content-Type", contentTypeOf(fileName))
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(data))
+            .build();
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("上传帧图片已取消");
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("上传帧图片失败: HTTP " + response.statusCode() + " " + response.body());
+        }
+    }
+
+    /**
+     * 对象的请求路径（已编码）：/{bucket}/{prefix}{fileName}
+     */
+    private String objectPath(String fileName) {
+        return "/" + encodePath(bucket) + "/" + encodePath(keyPrefix + fileName);
+    }
+
+    private static String contentTypeOf(String fileName) {
+        if (fileName.endsWith(".jpg")) {
+            return "image/jpeg";
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? "image/" + fileName.substring(dot + 1) : "application/octet-stream";
+    }
+
+    /**
+     * 生成 Authorization 头
+     * canonicalUri 为已编码的路径，headers 的键为小写的头名称，全部参与签名
+     */
+    static String authorization(String method, String canonicalUri, String canonicalQuery,
+            SortedMap<String, String> headers, String payloadHash, String amzDate,
+            String region, String accessKey, String secretKey) {
+        StringBuilder canonicalHeaders = new StringBuilder();
+        StringBuilder signedHeaderNames = new StringBuilder();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            canonicalHeaders.append(header.getKey()).append(':').append(header.getValue().trim()).append('\n');
+            if (signedHeaderNames.length() > 0) {
+                signedHeaderNames.append(';');
+            }
+            signedHeaderNames.append(header.getKey());
+        }
+
+        String canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\n"
+            + canonicalHeaders + "\n" + signedHeaderNames + "\n" + payloadHash;
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+            + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = hex(hmac(signingKey, stringToSign));
+
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+            + ", SignedHeaders=" + signedHeaderNames + ", Signature=" + signature;
+    }
+
+    /**
+     * 按S3规则编码路径：保留非保留字符与 '/'，其余字节编码为 %XX
+     */
+    static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(HEX_DIGITS.charAt(c >> 4)))
+                    .append(Character.toUpperCase(HEX_DIGITS.charAt(c & 0xf)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(HEX_DIGITS.charAt((b >> 4) & 0xf)).append(HEX_DIGITS.charAt(b & 0xf));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.videoprocessor.service;
+
+import org.bytedeco.javacv.Frame;
+
+/**
+ * 场景变化检测
+ * 为每个解码帧计算亮度签名（GRID x GRID 的缩小亮度图，见 LumaGrid），
+ * 当前帧与上一个返回帧的签名平均差异（0-1）达到阈值时返回当前帧，
+ * 因此只有被选中的帧才会复制、转换与编码。
+ * 每次提取创建一个实例，只在解码线程中使用。
+ */
+public class SceneChangeDetector {
+
+    private static final int GRID = 16;
+
+    private final double threshold;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+
+    private float[] signature = new float[GRID * GRID];
+    private float[] lastSignature = new float[GRID * GRID];
+    private final LumaGrid lumaGrid = new LumaGrid(GRID, GRID);
+
+    private boolean hasLast;
+    private long lastAcceptedMs;
+
+    /**
+     * minIntervalMs、maxIntervalMs 为0时不限制
+     */
+    public SceneChangeDetector(double threshold, long minIntervalMs, long maxIntervalMs) {
+        this.threshold = threshold;
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    /**
+     * 判断是否返回该帧，返回true时该帧成为之后比较的基准
+     * 第一帧总是返回；距上一个返回帧不足最小间隔时不计算签名，达到最大间隔时直接返回
+     */
+    public boolean accept(Frame frame, long timestampMs) {
+        if (hasLast && timestampMs - lastAcceptedMs < minIntervalMs) {
+            return false;
+        }
+        if (!lumaGrid.compute(frame, signature)) {
+            return false;
+        }
+
+        boolean accepted = !hasLast
+            || (maxIntervalMs > 0 && timestampMs - lastAcceptedMs >= maxIntervalMs)
+            || difference() >= threshold;
+        if (accepted) {
+            float[] previous = lastSignature;
+            lastSignature = signature;
+            signature = previous;
+            hasLast = true;
+            lastAcceptedMs = timestampMs;
+        }
+        return accepted;
+    }
+
+    /**
+     * 当前帧与基准帧签名的平均绝对差异，归一化到0-1
+     */
+    private double difference() {
+        double total = 0;
+        for (int i = 0; i < signature.length; i++) {
+            total += Math.abs(signature[i] - lastSignature[i]);
+        }
+        return total / signature.length / 255.0;
+    }
+}
@@ -0,0 +1,187 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionResponse;
+import com.videoprocessor.model.SpriteSheet;
+import org.bytedeco.javacv.Frame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * 雪碧图编码流水线
+ * 解码线程提交的帧（已由FFmpeg缩小为缩略图尺寸）按行优先依次复制到复用的拼图画布中，
+ * 画布排满 columns x rows 个缩略图后作为一帧交给编码流水线，每张拼图只编码一次；
+ * 最后一张拼图只保留用到的行，空余格子填充黑色。输出的帧数据为带有缩略图位置的 SpriteSheet。
+ * 每次提取创建一个实例，非线程安全，只能由一个解码线程使用。
+ */
+public class SpriteSheetPipeline extends FrameEncodePipeline {
+
+    private final int columns;
+    private final int rows;
+    private final FrameDeduplicator deduplicator;
+    private final TileAttacher attacher;
+
+    private Frame canvas;
+    private int tileWidth;
+    private int tileHeight;
+    private List<SpriteSheet.Tile> tiles = new ArrayList<>();
+
+    /**
+     * deduplicator 为null时不去重，重复的帧不占用格子
+     */
+    public SpriteSheetPipeline(ExecutorService encodeExecutor, int capacity, FrameEncoder encoder,
+            Consumer<FrameExtractionResponse.FrameData> downstream, FrameDeduplicator deduplicator,
+            int columns, int rows) {
+        this(encodeExecutor, capacity, encoder, new TileAttacher(downstream), deduplicator, columns, rows);
+    }
+
+    private SpriteSheetPipeline(ExecutorService encodeExecutor, int capacity, FrameEncoder encoder,
+            TileAttacher attacher, FrameDeduplicator deduplicator, int columns, int rows) {
+        super(encodeExecutor, capacity, encoder, attacher, null);
+        this.attacher = attacher;
+        this.deduplicator = deduplicator;
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * 将帧复制到画布的下一个格子，画布排满时提交编码
+     */
+    @Override
+    public void submit(Frame frame, double timestampSeconds) throws Exception {
+        if (frame.image == null || (deduplicator != null && deduplicator.isDuplicate(frame))) {
+            return;
+        }
+        if (canvas == null) {
+            tileWidth = frame.imageWidth;
+            tileHeight = frame.imageHeight;
+            canvas = new Frame(tileWidth * columns, tileHeight * rows, frame.imageDepth, frame.imageChannels);
+        }
+
+        int index = tiles.size();
+        int x = index % columns * tileWidth;
+        int y = index / columns * tileHeight;
+        copyTile(frame, canvas, x, y);
+        tiles.add(new SpriteSheet.Tile(timestampSeconds, x, y, tileWidth, tileHeight));
+
+        if (tiles.size() == columns * rows) {
+            submitSheet(canvas);
+        }
+    }
+
+    /**
+     * 提交未排满的最后一张拼图，等待所有拼图编码完成
+     */
+    @Override
+    public void finish() throws Exception {
+        try {
+            if (!tiles.isEmpty()) {
+                int usedRows = (tiles.size() + columns - 1) / columns;
+                Frame sheet = new Frame(canvas.imageWidth, usedRows * tileHeight, canvas.imageDepth,
+                    canvas.imageChannels);
+                try {
+                    copyRows(canvas, sheet, 0, sheet.imageHeight);
+                    clearCells(sheet, tiles.size(), usedRows * columns);
+                    submitSheet(sheet);
+                } finally {
+                    sheet.close();
+                }
+            }
+            super.finish();
+        } finally {
+            releaseCanvas();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        releaseCanvas();
+    }
+
+    /**
+     * 拼图的时间戳取第一个缩略图的时间；提交时复制画布，画布随即可以复用
+     */
+    private void submitSheet(Frame sheet) throws Exception {
+        attacher.pending.addLast(tiles);
+        super.submit(sheet, tiles.get(0).getTimestampSeconds());
+        tiles = new ArrayList<>();
+    }
+
+    /**
+     * 按行复制缩略图到画布的 (x, y) 处，尺寸与第一帧不同的帧裁剪到格子大小
+     */
+    private void copyTile(Frame tile, Frame target, int x, int y) {
+        int pixelBytes = target.imageChannels;
+        int width = Math.min(tile.imageWidth, tileWidth);
+        int height = Math.min(tile.imageHeight, tileHeight);
+        ByteBuffer source = ((ByteBuffer) tile.image[0]).duplicate();
+        ByteBuffer destination = ((ByteBuffer) target.image[0]).duplicate();
+        for (int row = 0; row < height; row++) {
+            int sourceOffset = row * tile.imageStride;
+            source.limit(sourceOffset + width * pixelBytes).position(sourceOffset);
+            destination.position((y + row) * target.imageStride + x * pixelBytes);
+            destination.put(source);
+        }
+    }
+
+    private void copyRows(Frame source, Frame target, int firstRow, int rowCount) {
+        int rowBytes = source.imageWidth * source.imageChannels;
+        ByteBuffer from = ((ByteBuffer) source.image[0]).duplicate();
+        ByteBuffer to = ((ByteBuffer) target.image[0]).duplicate();
+        for (int row = 0; row < rowCount; row++) {
+            int sourceOffset = (firstRow + row) * source.imageStride;
+            from.limit(sourceOffset + rowBytes).position(sourceOffset);
+            to.position(row * target.imageStride);
+            to.put(from);
+        }
+    }
+
+    /**
+     * 将格子 [from, to) 填充为黑色
+     */
+    private void clearCells(Frame sheet, int from, int to) {
+        byte[] black = new byte[tileWidth * sheet.imageChannels];
+        ByteBuffer data = ((ByteBuffer) sheet.image[0]).duplicate();
+        for (int index = from; index < to; index++) {
+            int x = index % columns * tileWidth;
+            int y = index / columns * tileHeight;
+            for (int row = 0; row < tileHeight; row++) {
+                data.position((y + row) * sheet.imageStride + x * sheet.imageChannels);
+                data.put(black);
+            }
+        }
+    }
+
+    private void releaseCanvas() {
+        if (canvas != null) {
+            canvas.close();
+            canvas = null;
+        }
+    }
+
+    /**
+     * 按提交顺序为编码完成的拼图附上其缩略图位置，编码失败的拼图（null）同样消耗一组位置
+     * 拼图的提交与输出都在解码线程中进行
+     */
+    private static class TileAttacher implements Consumer<FrameExtractionResponse.FrameData> {
+
+        private final Consumer<FrameExtractionResponse.FrameData> downstream;
+        private final Deque<List<SpriteSheet.Tile>> pending = new ArrayDeque<>();
+
+        private TileAttacher(Consumer<FrameExtractionResponse.FrameData> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void accept(FrameExtractionResponse.FrameData sheet) {
+            List<SpriteSheet.Tile> tiles = pending.pollFirst();
+            downstream.accept(sheet != null ? new SpriteSheet(sheet, tiles) : null);
+        }
+    }
+}
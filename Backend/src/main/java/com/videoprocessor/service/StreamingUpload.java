@@ -0,0 +1,87 @@
+package com.videoprocessor.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * 流式解析的multipart上传
+ * 包含文件部分之前的表单字段，以及尚未读取的文件内容流
+ */
+public class StreamingUpload {
+
+    private final Map<String, String> fields;
+    private final String fileName;
+    private final CountingInputStream content;
+
+    public StreamingUpload(Map<String, String> fields, String fileName, InputStream content) {
+        this.fields = fields;
+        this.fileName = fileName;
+        this.content = content != null ? new CountingInputStream(content) : null;
+    }
+
+    public String getField(String name) {
+        return fields.get(name);
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public InputStream getContent() {
+        return content;
+    }
+
+    /**
+     * 文件部分的大小：文件内容已读取到末尾时为读取的字节数，尚未读完时未知，返回null
+     */
+    public Long getFileSize() {
+        return content != null && content.finished ? content.count : null;
+    }
+
+    /**
+     * 统计文件部分已读取的字节数，并记录是否已读到末尾
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+        private boolean finished;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                finished = true;
+            } else {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                finished = true;
+            } else {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.videoprocessor.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * 记录打开、跳转与解码耗时的grabber
+ */
+public class TimedFrameGrabber extends FFmpegFrameGrabber {
+
+    private final ExtractionTimings timings;
+
+    public TimedFrameGrabber(File file, ExtractionTimings timings) {
+        super(file);
+        this.timings = timings;
+    }
+
+    public TimedFrameGrabber(InputStream inputStream, int maximumSize, ExtractionTimings timings) {
+        super(inputStream, maximumSize);
+        this.timings = timings;
+    }
+
+    @Override
+    public void start(boolean findStreamInfo) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            super.start(findStreamInfo);
+        } finally {
+            timings.record(ExtractionTimings.Stage.OPEN, startNanos);
+        }
+    }
+
+    @Override
+    public void setTimestamp(long timestamp, boolean checkStream) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            super.setTimestamp(timestamp, checkStream);
+        } finally {
+            timings.record(ExtractionTimings.Stage.SEEK, startNanos);
+        }
+    }
+
+    @Override
+    public Frame grabImage() throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            return super.grabImage();
+        } finally {
+            timings.record(ExtractionTimings.Stage.DECODE, startNanos);
+        }
+    }
+}
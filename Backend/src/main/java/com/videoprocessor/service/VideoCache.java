@@ -0,0 +1,245 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.VideoInfo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 上传视频缓存
+ * 以文件内容的SHA-256作为视频ID（videoId），相同内容只保存一份，并缓存探测得到的视频信息与关键帧索引。
+ * 缓存文件总大小超过上限时按最近最少使用淘汰，正在被处理的视频不会被淘汰；
+ * 客户端可以用 videoId 引用已上传的视频，不必重复上传。
+ */
+@Component
+public class VideoCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoCache.class);
+
+    // 计算内容摘要时每次读取的字节数
+    private static final int DIGEST_BUFFER_BYTES = 1024 * 1024;
+
+    @Value("${video.processor.temp-dir:${java.io.tmpdir}/video-processor}")
+    private String tempDir;
+
+    @Value("${video.processor.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${video.processor.cache.max-size:2GB}")
+    private DataSize maxSize;
+
+    private Path cacheDir;
+
+    // 按访问顺序排列，最久未使用的在最前
+    private final LinkedHashMap<String, CachedVideo> videos = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheDir = Paths.get(tempDir, "cache");
+        Files.createDirectories(cacheDir);
+
+        // 缓存索引不持久化，清理上次运行遗留的文件
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            files.forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 创建计算视频ID的摘要（SHA-256），边上传边保存时随写入更新
+     */
+    public static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 将已保存的上传文件放入缓存，只读读取一遍文件计算摘要；文件超过缓存上限时不读取，返回临时视频源
+     */
+    public VideoSource put(File file, String originalFilename) throws IOException {
+        if (file.length() > maxSize.toBytes()) {
+            logger.info("视频大小超过缓存上限，不缓存: {}", originalFilename);
+            return new VideoSource(file, originalFilename, file.length(), true);
+        }
+        MessageDigest contentDigest = newContentDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                contentDigest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return put(file, contentDigest, originalFilename);
+    }
+
+    /**
+     * 将上传保存的临时文件放入缓存，返回引用缓存文件的视频源
+     * contentDigest 为保存该文件时对全部内容计算的 newContentDigest() 摘要，不再重新读取文件；
+     * 内容已缓存时删除该临时文件并复用已有文件；文件超过缓存上限时不缓存，返回临时视频源
+     */
+    public VideoSource put(File file, MessageDigest contentDigest, String originalFilename) throws IOException {
+        String videoId = HexFormat.of().formatHex(contentDigest.digest());
+        long size = file.length();
+
+        if (size > maxSize.toBytes()) {
+            logger.info("视频大小超过缓存上限，不缓存: {}", originalFilename);
+            return new VideoSource(file, originalFilename, size, true);
+        }
+
+        synchronized (this) {
+            CachedVideo cached = videos.get(videoId);
+            if (cached != null) {
+                file.delete();
+                logger.info("命中视频缓存: {} -> {}", originalFilename, videoId);
+                return acquire(cached, originalFilename);
+            }
+
+            Path target = cacheDir.resolve(videoId + extensionOf(file));
+            Files.move(file.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+            cached = new CachedVideo(videoId, target.toFile(), size);
+            videos.put(videoId, cached);
+            totalBytes += size;
+            VideoSource source = acquire(cached, originalFilename);
+            evictIfNecessary();
+            return source;
+        }
+    }
+
+    /**
+     * 按视频ID打开已缓存的视频，不存在时返回null
+     */
+    public synchronized VideoSource open(String videoId, String originalFilename) {
+        CachedVideo cached = videos.get(videoId);
+        if (cached == null) {
+            return null;
+        }
+        return acquire(cached, originalFilename != null ? originalFilename : cached.originalFilename);
+    }
+
+    /**
+     * 视频ID是否存在
+     */
+    public synchronized boolean contains(String videoId) {
+        return videoId != null && videos.containsKey(videoId);
+    }
+
+    /**
+     * 获取已缓存的视频信息，未探测过时返回null
+     */
+    public synchronized VideoInfo getVideoInfo(String videoId) {
+        CachedVideo cached = videos.get(videoId);
+        return cached != null ? cached.videoInfo : null;
+    }
+
+    /**
+     * 保存探测得到的视频信息
+     */
+    public synchronized void putVideoInfo(String videoId, VideoInfo videoInfo) {
+        CachedVideo cached = videos.get(videoId);
+        if (cached != null) {
+            cached.videoInfo = videoInfo;
+        }
+    }
+
+    /**
+     * 获取已缓存的关键帧索引，未建立过时返回null
+     */
+    public synchronized KeyframeIndex getKeyframeIndex(String videoId) {
+        CachedVideo cached = videos.get(videoId);
+        return cached != null ? cached.keyframeIndex : null;
+    }
+
+    /**
+     * 保存关键帧索引
+     */
+    public synchronized void putKeyframeIndex(String videoId, KeyframeIndex keyframeIndex) {
+        CachedVideo cached = videos.get(videoId);
+        if (cached != null) {
+            cached.keyframeIndex = keyframeIndex;
+        }
+    }
+
+    private VideoSource acquire(CachedVideo cached, String originalFilename) {
+        cached.references++;
+        if (cached.originalFilename == null) {
+            cached.originalFilename = originalFilename;
+        }
+        return new VideoSource(cached.file, originalFilename, cached.size, cached.videoId, () -> release(cached));
+    }
+
+    private synchronized void release(CachedVideo cached) {
+        cached.references--;
+        evictIfNecessary();
+    }
+
+    /**
+     * 超过缓存上限时淘汰最久未使用且未被引用的视频
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<String, CachedVideo>> iterator = videos.entrySet().iterator();
+        while (totalBytes > maxSize.toBytes() && iterator.hasNext()) {
+            CachedVideo cached = iterator.next().getValue();
+            if (cached.references > 0) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= cached.size;
+            cached.file.delete();
+            logger.info("淘汰视频缓存: {}", cached.videoId);
+        }
+    }
+
+    private String extensionOf(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot) : "";
+    }
+
+    /**
+     * 缓存的视频
+     */
+    private static class CachedVideo {
+        private final String videoId;
+        private final File file;
+        private final long size;
+        private String originalFilename;
+        private VideoInfo videoInfo;
+        private KeyframeIndex keyframeIndex;
+        private int references;
+
+        private CachedVideo(String videoId, File file, long size) {
+            this.videoId = videoId;
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.videoprocessor.service;
+
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 只读取容器头部的视频探测
+ * mp4/mov 按顶层盒读取到 moov 为止，mdat 只保留开头的 header-bytes 字节（其余跳过，不保存），
+ * 保留的数据位于原文件中的偏移处，grabber 读到未保留的部分时视为文件结束；
+ * 其他格式只读取开头的 header-bytes 字节。探测时限制 probesize 与 analyzeduration，不解码整个视频。
+ */
+@Component
+public class VideoHeaderProbe {
+
+    // 非mp4/mov格式读取的字节数与mp4/mov的mdat保留的字节数，同时作为FFmpeg的probesize
+    @Value("${video.processor.probe.header-bytes:4MB}")
+    private DataSize headerBytes;
+
+    // mp4/mov保留的头部盒（moov等）总大小上限
+    @Value("${video.processor.probe.max-header-size:64MB}")
+    private DataSize maxHeaderSize;
+
+    // FFmpeg analyzeduration，分析流参数时最多读取的时长
+    @Value("${video.processor.probe.analyze-duration:1s}")
+    private Duration analyzeDuration;
+
+    /**
+     * 从上传流中读取容器头部，mp4/mov 读到 moov 且已保留 mdat 开头后停止
+     * 头部盒超过大小上限时不读入内存，只保留该盒的盒头后停止（isOversized），上传流停在盒头之后
+     */
+    public Header readHeader(String extension, InputStream in) throws IOException {
+        Header header = new Header();
+        if (!"mp4".equals(extension) && !"mov".equals(extension)) {
+            header.add(0, in.readNBytes((int) headerBytes.toBytes()));
+            return header;
+        }
+
+        long offset = 0;
+        long boxBytes = 0;
+        boolean mdatFound = false;
+        byte[] boxHeader = new byte[16];
+        while (!(header.moovFound && mdatFound) && in.readNBytes(boxHeader, 0, 8) == 8) {
+            long boxSize = readUnsignedInt(boxHeader, 0);
+            String boxType = new String(boxHeader, 4, 4, StandardCharsets.US_ASCII);
+            int headerLength = 8;
+            if (boxSize == 1) {
+                // 64位长度
+                if (in.readNBytes(boxHeader, 8, 8) != 8) {
+                    break;
+                }
+                boxSize = (readUnsignedInt(boxHeader, 8) << 32) | readUnsignedInt(boxHeader, 12);
+                headerLength = 16;
+            }
+            boolean lastBox = boxSize == 0;
+            if (lastBox) {
+                // 延伸到文件末尾的盒，最多读取到头部大小上限
+                boxSize = maxHeaderSize.toBytes() - boxBytes;
+            }
+            if (boxSize < headerLength) {
+                break;
+            }
+
+            long payloadSize = boxSize - headerLength;
+            boolean mdat = "mdat".equals(boxType);
+            long keep = mdat ? Math.min(payloadSize, headerBytes.toBytes()) : payloadSize;
+            if (!mdat && boxBytes + boxSize > maxHeaderSize.toBytes()) {
+                header.add(offset, Arrays.copyOf(boxHeader, headerLength));
+                header.oversized = true;
+                break;
+            }
+            byte[] box = new byte[(int) (headerLength + keep)];
+            System.arraycopy(boxHeader, 0, box, 0, headerLength);
+            int read = in.readNBytes(box, headerLength, (int) keep);
+            header.add(offset, read == keep ? box : Arrays.copyOf(box, headerLength + read));
+            if (read < keep || lastBox) {
+                header.moovFound |= "moov".equals(boxType);
+                break;
+            }
+            if (mdat) {
+                mdatFound = true;
+                if (keep < payloadSize && !header.moovFound) {
+                    in.skipNBytes(payloadSize - keep);
+                }
+            } else {
+                boxBytes += boxSize;
+                header.moovFound |= "moov".equals(boxType);
+            }
+            offset += boxSize;
+        }
+        return header;
+    }
+
+    /**
+     * 限制grabber的探测量：probesize、analyzeduration，解码器只用1个线程
+     */
+    public void configure(FFmpegFrameGrabber grabber) {
+        grabber.setOption("probesize", String.valueOf(headerBytes.toBytes()));
+        grabber.setOption("analyzeduration", String.valueOf(analyzeDuration.toNanos() / 1000));
+        grabber.setVideoOption("threads", "1");
+    }
+
+    private static long readUnsignedInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFFL) << 24) | ((bytes[offset + 1] & 0xFFL) << 16)
+            | ((bytes[offset + 2] & 0xFFL) << 8) | (bytes[offset + 3] & 0xFFL);
+    }
+
+    /**
+     * 读取到的容器头部：若干段位于原文件偏移处的数据
+     */
+    public static class Header {
+        private final List<Long> offsets = new ArrayList<>();
+        private final List<byte[]> segments = new ArrayList<>();
+        private long length;
+        private boolean moovFound;
+        private boolean oversized;
+
+        private void add(long offset, byte[] data) {
+            offsets.add(offset);
+            segments.add(data);
+            length = offset + data.length;
+        }
+
+        /**
+         * 保留的数据覆盖的文件长度（最后一段的结束位置）
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * 实际保留的字节数
+         */
+        public long getRetainedBytes() {
+            return segments.stream().mapToLong(segment -> segment.length).sum();
+        }
+
+        /**
+         * 数据是否为文件的连续开头部分（没有跳过任何数据），是时可与剩余的上传流拼接还原完整文件
+         */
+        public boolean isPrefix() {
+            return getRetainedBytes() == length;
+        }
+
+        /**
+         * mp4/mov 是否已读到 moov 盒
+         */
+        public boolean isMoovFound() {
+            return moovFound;
+        }
+
+        /**
+         * mp4/mov 的头部盒是否超过大小上限而未读入内存，此时其余上传内容紧接在保留数据之后
+         */
+        public boolean isOversized() {
+            return oversized;
+        }
+
+        /**
+         * 将保留的数据按原文件偏移写入文件，跳过未保留的部分（文件空洞）
+         */
+        public void writeTo(FileChannel channel) throws IOException {
+            for (int i = 0; i < segments.size(); i++) {
+                ByteBuffer buffer = ByteBuffer.wrap(segments.get(i));
+                long position = offsets.get(i);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        }
+
+        /**
+         * 按原文件偏移读取保留数据的输入流，读到未保留的部分时返回文件结束
+         * 支持 reset() 回到开头与 skip() 跳转，供grabber按偏移读取
+         */
+        public InputStream openStream() {
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) == 1 ? one[0] & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    for (int i = 0; i < segments.size(); i++) {
+                        long start = offsets.get(i);
+                        byte[] segment = segments.get(i);
+                        if (position >= start && position < start + segment.length) {
+                            int count = (int) Math.min(len, start + segment.length - position);
+                            System.arraycopy(segment, (int) (position - start), buffer, off, count);
+                            position += count;
+                            return count;
+                        }
+                    }
+                    return -1;
+                }
+
+                @Override
+                public long skip(long n) {
+                    long skipped = Math.max(0, Math.min(n, length - position));
+                    position += skipped;
+                    return skipped;
+                }
+
+                @Override
+                public boolean markSupported() {
+                    return true;
+                }
+
+                @Override
+                public synchronized void mark(int readLimit) {
+                    // 只支持回到开头
+                }
+
+                @Override
+                public synchronized void reset() {
+                    position = 0;
+                }
+            };
+        }
+    }
+}
@@ -2,27 +2,59 @@ package com.videoprocessor.service;
 
 import com.videoprocessor.model.FrameExtractionRequest;
 import com.videoprocessor.model.FrameExtractionResponse;
+import com.videoprocessor.model.SpriteSheet;
+import com.videoprocessor.model.SpriteSheetResponse;
 import com.videoprocessor.model.VideoInfo;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avformat.AVFormatContext;
+import org.bytedeco.ffmpeg.avformat.AVIndexEntry;
+import org.bytedeco.ffmpeg.avformat.AVStream;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.Frame;
-import org.bytedeco.javacv.Java2DFrameConverter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.bytedeco.ffmpeg.global.avcodec.AV_PKT_FLAG_KEY;
+import static org.bytedeco.ffmpeg.global.avformat.AVSEEK_FLAG_BACKWARD;
+import static org.bytedeco.ffmpeg.global.avformat.av_seek_frame;
+import static org.bytedeco.ffmpeg.global.avformat.avformat_index_get_entries_count;
+import static org.bytedeco.ffmpeg.global.avformat.avformat_index_get_entry;
+import static org.bytedeco.ffmpeg.global.avutil.AVMEDIA_TYPE_VIDEO;
+import static org.bytedeco.ffmpeg.global.avutil.AV_PIX_FMT_GRAY8;
+import static org.bytedeco.ffmpeg.global.avutil.AV_NOPTS_VALUE;
+import static org.bytedeco.ffmpeg.global.avutil.av_make_q;
+import static org.bytedeco.ffmpeg.global.avutil.av_rescale_q;
+import static org.bytedeco.ffmpeg.global.swscale.SWS_AREA;
 
 /**
  * 视频处理服务类
@@ -33,6 +65,24 @@ public class VideoProcessorService {
 
     private static final Logger logger = LoggerFactory.getLogger(VideoProcessorService.class);
 
+    // 支持只向前解码的容器格式
+    private static final List<String> STREAMABLE_FORMATS = Arrays.asList("mkv", "webm", "flv");
+
+    // 判断 mp4/mov 是否为 faststart 时最多查看的字节数
+    private static final int FORWARD_PROBE_BYTES = 1024 * 1024;
+
+    // 上传流写入临时文件时每次传输的字节数
+    private static final long SPOOL_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    // 估算成本时解码器内部缓冲的帧数（参考帧与多线程解码的帧）
+    private static final int DECODER_BUFFERED_FRAMES = 8;
+
+    // 估算成本时的基准分辨率，1080p 的请求占用1个CPU槽位
+    private static final double REFERENCE_PIXELS = 1920.0 * 1080;
+
+    // 没有容器索引时读取数据包估算GOP长度，最多读取的GOP数
+    private static final int SAMPLED_GOP_COUNT = 16;
+
     @Value("${video.processor.temp-dir:${java.io.tmpdir}/video-processor}")
     private String tempDir;
 
@@ -48,207 +98,1409 @@ public class VideoProcessorService {
     @Value("${video.processor.image-quality:85}")
     private int defaultImageQuality;
 
-    private final Java2DFrameConverter frameConverter = new Java2DFrameConverter();
+    @Value("${video.processor.large-file.chunk-duration:30}")
+    private int chunkDurationSeconds;
+
+    @Value("${video.processor.performance.thread-pool-size:4}")
+    private int threadPoolSize;
+
+    @Value("${video.processor.performance.buffer-size:64}")
+    private int bufferSizeMb;
+
+    @Autowired
+    @Qualifier("segmentExecutor")
+    private ExecutorService segmentExecutor;
+
+    @Autowired
+    @Qualifier("encodeExecutor")
+    private ExecutorService encodeExecutor;
+
+    @Autowired
+    private ImageEncoder imageEncoder;
+
+    @Autowired
+    private VideoCache videoCache;
+
+    @Autowired
+    private FrameCache frameCache;
+
+    @Autowired
+    private FrameStorage frameStorage;
+
+    @Autowired
+    private ExtractionMetrics extractionMetrics;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private DecoderThreadScheduler decoderThreadScheduler;
+
+    @Autowired
+    private VideoHeaderProbe videoHeaderProbe;
 
     /**
      * 获取视频信息
+     * 可上传视频文件，或通过 videoId 引用已缓存的视频；缓存中已有探测结果时不再打开视频
      */
-    public VideoInfo getVideoInfo(MultipartFile videoFile) throws Exception {
-        logger.info("开始获取视频信息: {}", videoFile.getOriginalFilename());
+    public VideoInfo getVideoInfo(MultipartFile videoFile, String videoId) throws Exception {
+        logger.info("开始获取视频信息: {}", videoFile != null ? videoFile.getOriginalFilename() : videoId);
         
-        // 保存临时文件
-        File tempFile = saveTemporaryFile(videoFile);
+        // 保存临时文件（或引用缓存文件），处理完成后自动清理
+        try (VideoSource source = openVideo(videoFile, videoId)) {
+            return probeVideoInfo(source);
+        }
+    }
+
+    /**
+     * 边上传边获取视频信息
+     * 只读取上传流中的容器头部并探测，不保存整个文件，剩余的上传内容不再读取；
+     * 头部不足以给出时长与分辨率、或mp4/mov的头部盒超过大小上限时，将已读取的头部与剩余上传内容写入临时文件后再探测。
+     * cache 为 true 且启用了视频缓存时，读取整个文件放入缓存并返回 videoId。
+     * 文件大小为实际读取的文件部分字节数，只读取头部、未读到文件末尾时为null
+     */
+    public VideoInfo getVideoInfo(StreamingUpload upload, boolean cache) throws Exception {
+        String fileName = upload.getFileName();
+        logger.info("开始获取视频信息: {}", fileName);
+        
+        if (cache && videoCache.isEnabled()) {
+            MessageDigest contentDigest = VideoCache.newContentDigest();
+            File tempFile = spoolToTemporaryFile(fileName, new DigestInputStream(upload.getContent(), contentDigest));
+            VideoSource cachedSource;
+            try {
+                cachedSource = videoCache.put(tempFile, contentDigest, fileName);
+            } catch (IOException e) {
+                tempFile.delete();
+                throw e;
+            }
+            try (VideoSource source = cachedSource) {
+                return probeVideoInfo(source);
+            }
+        }
+        
+        VideoHeaderProbe.Header header = videoHeaderProbe.readHeader(getFileExtension(fileName).toLowerCase(),
+            upload.getContent());
+        if (!header.isOversized()) {
+            InputStream headerStream = header.openStream();
+            try (VideoSource source = new VideoSource(headerStream, fileName, upload.getFileSize());
+                 FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(headerStream,
+                     (int) Math.min(header.getLength(), Integer.MAX_VALUE))) {
+                videoHeaderProbe.configure(grabber);
+                grabber.start();
+                VideoInfo videoInfo = createVideoInfo(source, grabber);
+                if (videoInfo.getDuration() > 0 && videoInfo.getWidth() > 0) {
+                    logger.info("视频信息获取成功（读取头部 {}KB）: {}", header.getRetainedBytes() / 1024, videoInfo);
+                    return videoInfo;
+                }
+            } catch (FFmpegFrameGrabber.Exception e) {
+                logger.info("仅凭视频头部探测失败: {}", e.getMessage());
+            }
+            
+            if (!header.isPrefix()) {
+                throw new IllegalArgumentException("无法解析视频头部" + (header.isMoovFound() ? "" : "：未找到moov"));
+            }
+            logger.info("视频头部信息不完整，保存完整文件后探测: {}", fileName);
+        } else {
+            logger.info("视频头部超过大小上限，保存完整文件后探测: {}", fileName);
+        }
+        // 跳过的mdat数据在临时文件中为空洞，探测只需要头部盒与mdat开头
+        File tempFile = spoolToTemporaryFile(fileName, header, upload.getContent());
+        try (VideoSource source = new VideoSource(tempFile, fileName, upload.getFileSize(), true)) {
+            return probeVideoInfo(source);
+        }
+    }
+
+    /**
+     * 探测视频源的信息，只读取容器头部与少量数据包；缓存中的视频复用并保存探测结果
+     */
+    private VideoInfo probeVideoInfo(VideoSource source) throws Exception {
+        VideoInfo cachedInfo = source.getVideoId() != null ? videoCache.getVideoInfo(source.getVideoId()) : null;
+        if (cachedInfo != null) {
+            logger.info("使用缓存的视频信息: {}", source.getVideoId());
+            return createVideoInfo(source, cachedInfo);
+        }
         
-        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(tempFile)) {
+        try (FFmpegFrameGrabber grabber = source.createGrabber()) {
+            videoHeaderProbe.configure(grabber);
             grabber.start();
             
-            VideoInfo videoInfo = new VideoInfo(
-                videoFile.getOriginalFilename(),
-                grabber.getLengthInTime() / 1000, // 转换为毫秒
-                grabber.getFrameRate(),
-                grabber.getImageWidth(),
-                grabber.getImageHeight(),
-                videoFile.getSize(),
-                getFileExtension(videoFile.getOriginalFilename())
-            );
+            VideoInfo videoInfo = createVideoInfo(source, grabber);
+            if (source.getVideoId() != null) {
+                videoCache.putVideoInfo(source.getVideoId(), videoInfo);
+            }
             
             logger.info("视频信息获取成功: {}", videoInfo);
             return videoInfo;
-            
-        } finally {
-            // 清理临时文件
-            if (tempFile.exists()) {
-                tempFile.delete();
-            }
         }
     }
 
     /**
      * 提取视频帧并转换为base64
      */
-    public FrameExtractionResponse extractFrames(MultipartFile videoFile, FrameExtractionRequest request) {
-        long startTime = System.currentTimeMillis();
-        FrameExtractionResponse response = new FrameExtractionResponse();
+    public FrameExtractionResponse extractFrames(MultipartFile videoFile, String videoId,
+            FrameExtractionRequest request) {
+        List<FrameExtractionResponse.FrameData> frames = new ArrayList<>();
+        FrameExtractionResponse response = extractFrames(videoFile, videoId, request, frames::add, true, true);
+        if (response.isSuccess()) {
+            response.setFrames(frames);
+        }
+        return response;
+    }
+
+    /**
+     * 提取雪碧图与WebVTT缩略图轨道
+     * 帧按请求的提取方式解码并缩小后拼接为 spriteColumns x spriteRows 的拼图，每张拼图作为一帧返回；
+     * 轨道中引用的拼图文件名为帧数据的 fileName（输出到磁盘或对象存储时为其位置）
+     */
+    public SpriteSheetResponse extractSpriteSheets(MultipartFile videoFile, String videoId,
+            FrameExtractionRequest request) {
+        FrameExtractionResponse response = extractFrames(videoFile, videoId, request);
+        SpriteSheetResponse spriteResponse =
+            new SpriteSheetResponse(response, request.getSpriteColumns(), request.getSpriteRows());
+        if (!response.isSuccess()) {
+            return spriteResponse;
+        }
+
+        List<SpriteSheet> sheets = new ArrayList<>();
+        int totalTiles = 0;
+        for (FrameExtractionResponse.FrameData frameData : response.getFrames()) {
+            SpriteSheet sheet = (SpriteSheet) frameData;
+            if (sheet.getFileName() == null) {
+                sheet.setFileName(BinaryFrameWriter.frameFileName(sheet.getFrameNumber(), resolveOutputFormat(request)));
+            }
+            sheets.add(sheet);
+            totalTiles += sheet.getTiles().size();
+        }
+        // 最后一个缩略图的时间段到提取结束时间为止，不超过视频时长
+        long endTimeMs = resolveTimeRangeMs(request, response.getVideoInfo())[1];
+        if (response.getVideoInfo().getDuration() > 0) {
+            endTimeMs = Math.min(endTimeMs, response.getVideoInfo().getDuration());
+        }
+        spriteResponse.setTotalTiles(totalTiles);
+        spriteResponse.setWebVtt(WebVttWriter.thumbnailTrack(sheets, endTimeMs / 1000.0));
+        return spriteResponse;
+    }
+
+    /**
+     * 流式提取视频帧
+     * 每帧编码完成后立即按时间顺序交给 frameConsumer，不在内存中累积帧列表；
+     * 返回的响应只包含视频信息、提取帧数和处理耗时。
+     * 为保证内存占用与帧数无关，流式提取不使用分段并行解码，只通过编码流水线并行编码。
+     * retainFrames 表示调用方会保留全部帧（如批量提取汇总结果），准入控制按保留完整结果估算内存。
+     */
+    public FrameExtractionResponse streamFrames(MultipartFile videoFile, String videoId,
+            FrameExtractionRequest request, boolean retainFrames,
+            Consumer<FrameExtractionResponse.FrameData> frameConsumer) {
+        return extractFrames(videoFile, videoId, request, frameConsumer, false, retainFrames);
+    }
+
+    /**
+     * 流式提取前的准备：保存上传文件（或引用缓存文件）、探测视频信息并取得准入预算
+     * 预算不足时抛出 AdmissionRejectedException，流式接口可在响应提交前返回503；
+     * 其他失败由 streamFrames 作为失败响应返回
+     */
+    public PreparedExtraction prepareStream(MultipartFile videoFile, String videoId,
+            FrameExtractionRequest request, boolean retainFrames) {
+        return rejectIfOverBudget(prepareExtraction(videoFile, videoId, request, false, retainFrames));
+    }
+
+    /**
+     * 边上传边提取的准备，视频源随提取结束（或准入被拒绝时）关闭
+     */
+    public PreparedExtraction prepareStream(VideoSource source, FrameExtractionRequest request) {
+        return rejectIfOverBudget(prepareExtraction(source, true, request, extractionMetrics.newTimings(),
+            false, false));
+    }
+
+    /**
+     * 执行 prepareStream 准备好的流式提取，结束后释放视频源与预算
+     */
+    public FrameExtractionResponse streamFrames(PreparedExtraction prepared,
+            Consumer<FrameExtractionResponse.FrameData> frameConsumer) {
+        return runExtraction(prepared, videoInfo -> { }, frameConsumer);
+    }
+
+    /**
+     * 从已保存的视频源提取视频帧（用于异步任务等脱离上传请求的场景）
+     * 获取到视频信息后回调 videoInfoConsumer，每提取一帧回调 frameConsumer，
+     * 返回的响应包含完整的帧列表；视频源由调用方负责关闭。
+     */
+    public FrameExtractionResponse extractFrames(VideoSource source, FrameExtractionRequest request,
+            Consumer<VideoInfo> videoInfoConsumer, Consumer<FrameExtractionResponse.FrameData> frameConsumer) {
+        List<FrameExtractionResponse.FrameData> frames = new ArrayList<>();
+        ExtractionTimings timings = extractionMetrics.newTimings();
+        FrameExtractionResponse response = extractFrames(source, request, timings, videoInfoConsumer, frameData -> {
+            frames.add(frameData);
+            frameConsumer.accept(frameData);
+        }, true, true);
+        if (response.isSuccess()) {
+            response.setFrames(frames);
+        }
+        return response;
+    }
+
+    /**
+     * 打开边上传边解码的视频源
+     * 容器格式支持只向前解码时（mkv/webm/flv，以及moov位于mdat之前的mp4/mov），上传流直接交给grabber；
+     * 否则将上传流一次性写入唯一命名的临时文件
+     */
+    public VideoSource openStreamingUpload(StreamingUpload upload) throws IOException {
+        String fileName = upload.getFileName();
+        BufferedInputStream content = new BufferedInputStream(upload.getContent(), FORWARD_PROBE_BYTES);
+        
+        if (isForwardDecodable(getFileExtension(fileName).toLowerCase(), content)) {
+            logger.info("边上传边解码: {}", fileName);
+            VideoSource source = new VideoSource(content, fileName, upload.getFileSize());
+            source.setHeaderInfo(probeBufferedHeader(source, content));
+            return source;
+        }
+        
+        try (InputStream in = content) {
+            File tempFile = spoolToTemporaryFile(fileName, in);
+            return new VideoSource(tempFile, fileName, tempFile.length(), true);
+        }
+    }
+
+    /**
+     * 打开上传的视频文件，或按 videoId 打开已缓存的视频
+     */
+    public VideoSource openVideo(MultipartFile videoFile, String videoId) throws IOException {
+        if (videoId != null) {
+            VideoSource source = videoCache.open(videoId, null);
+            if (source == null) {
+                throw new IllegalArgumentException("视频不存在或已过期，请重新上传: " + videoId);
+            }
+            return source;
+        }
+        return openUpload(videoFile);
+    }
+
+    /**
+     * 保存上传的视频文件
+     * 上传文件由 transferTo 移动为临时文件，不再写入第二份；启用缓存时只读读取一遍计算内容摘要，
+     * 按内容去重放入缓存，关闭时释放引用；否则为临时视频源，关闭时删除临时文件
+     */
+    public VideoSource openUpload(MultipartFile videoFile) throws IOException {
+        File tempFile = saveTemporaryFile(videoFile);
+        if (!videoCache.isEnabled()) {
+            return new VideoSource(tempFile, videoFile.getOriginalFilename(), videoFile.getSize(), true);
+        }
+        try {
+            return videoCache.put(tempFile, videoFile.getOriginalFilename());
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * 视频ID是否存在于缓存中
+     */
+    public boolean isCachedVideo(String videoId) {
+        return videoCache.contains(videoId);
+    }
+
+    /**
+     * 验证视频格式
+     */
+    public boolean isValidVideoFormat(String fileName) {
+        if (fileName == null) {
+            return false;
+        }
+        
+        String extension = getFileExtension(fileName).toLowerCase();
+        String[] formats = supportedFormats.split(",");
+        
+        for (String format : formats) {
+            if (format.trim().equalsIgnoreCase(extension)) {
+                return true;
+            }
+        }
         
+        return false;
+    }
+
+    /**
+     * 估算本次请求将提取的帧数，关键帧与场景变化模式无法预估时返回0
+     */
+    public int estimateFrameCount(FrameExtractionRequest request, VideoInfo videoInfo) {
+        if (request.getMode() != FrameExtractionRequest.Mode.DEFAULT) {
+            return 0;
+        }
+        int[] range = resolveTimeRangeMs(request, videoInfo);
+        long rangeMs = Math.max(0, range[1] - range[0]);
+        if (request.getIntervalSeconds() != null) {
+            long intervalMs = request.getIntervalSeconds() * 1000L;
+            return (int) ((rangeMs + intervalMs - 1) / intervalMs);
+        }
+        return (int) Math.min(videoInfo.getTotalFrames(), rangeMs * videoInfo.getFrameRate() / 1000);
+    }
+
+    /**
+     * 保存上传文件（或引用缓存文件）后提取视频帧，结果按时间顺序交给 frameConsumer
+     */
+    private FrameExtractionResponse extractFrames(MultipartFile videoFile, String videoId,
+            FrameExtractionRequest request, Consumer<FrameExtractionResponse.FrameData> frameConsumer,
+            boolean allowSegments, boolean retainFrames) {
+        PreparedExtraction prepared = prepareExtraction(videoFile, videoId, request, allowSegments, retainFrames);
+        return runExtraction(prepared, videoInfo -> { }, frameConsumer);
+    }
+
+    /**
+     * 保存上传文件（或引用缓存文件），探测视频信息并取得准入预算
+     * 失败时返回只包含失败响应的对象，处理耗时包含保存上传文件的时间
+     */
+    private PreparedExtraction prepareExtraction(MultipartFile videoFile, String videoId,
+            FrameExtractionRequest request, boolean allowSegments, boolean retainFrames) {
+        PreparedExtraction prepared = new PreparedExtraction(request, extractionMetrics.newTimings(),
+            System.currentTimeMillis(), allowSegments, retainFrames);
+        extractionMetrics.extractionStarted();
+        
+        // 验证文件格式
+        if (videoId == null && !isValidVideoFormat(videoFile.getOriginalFilename())) {
+            prepared.failure = new FrameExtractionResponse(false, "不支持的视频格式");
+            return prepared;
+        }
+        
+        long uploadStartNanos = System.nanoTime();
+        try {
+            // 保存临时文件（或引用缓存文件），提取结束时自动清理
+            prepared.source = openVideo(videoFile, videoId);
+            prepared.closeSource = true;
+            prepared.timings.record(ExtractionTimings.Stage.UPLOAD, uploadStartNanos);
+        } catch (Exception e) {
+            logger.error("视频帧提取失败: {}", e.getMessage(), e);
+            prepared.failure = new FrameExtractionResponse(false, "视频处理失败: " + e.getMessage());
+            return prepared;
+        }
+        openExtraction(prepared);
+        return prepared;
+    }
+
+    /**
+     * 从视频源提取视频帧，结果按时间顺序交给 frameConsumer，各阶段耗时记录到 timings；视频源由调用方负责关闭
+     */
+    private FrameExtractionResponse extractFrames(VideoSource source, FrameExtractionRequest request,
+            ExtractionTimings timings, Consumer<VideoInfo> videoInfoConsumer,
+            Consumer<FrameExtractionResponse.FrameData> frameConsumer, boolean allowSegments, boolean retainFrames) {
+        PreparedExtraction prepared = prepareExtraction(source, false, request, timings, allowSegments, retainFrames);
+        return runExtraction(prepared, videoInfoConsumer, frameConsumer);
+    }
+
+    /**
+     * 探测视频源并取得准入预算，closeSource 为true时视频源随提取结束关闭
+     */
+    private PreparedExtraction prepareExtraction(VideoSource source, boolean closeSource,
+            FrameExtractionRequest request, ExtractionTimings timings, boolean allowSegments, boolean retainFrames) {
+        PreparedExtraction prepared = new PreparedExtraction(request, timings, System.currentTimeMillis(),
+            allowSegments, retainFrames);
+        extractionMetrics.extractionStarted();
+        prepared.source = source;
+        prepared.closeSource = closeSource;
+        openExtraction(prepared);
+        return prepared;
+    }
+
+    /**
+     * 先按头部探测的视频信息估算成本并预留预算（预算不足时排队或拒绝），排队期间不持有grabber与解码线程；
+     * 取得预算后再启动grabber、分配解码线程。失败时释放已取得的资源，失败原因记录为响应
+     */
+    private void openExtraction(PreparedExtraction prepared) {
+        VideoSource source = prepared.source;
+        FrameExtractionRequest request = prepared.request;
+        VideoInfo videoInfo = null;
         try {
-            logger.info("开始提取视频帧: {}, 请求参数: {}", videoFile.getOriginalFilename(), request);
+            logger.info("开始提取视频帧: {}, 请求参数: {}", source.getOriginalFilename(), request);
             
             // 验证文件格式
-            if (!isValidVideoFormat(videoFile.getOriginalFilename())) {
-                response.setSuccess(false);
-                response.setMessage("不支持的视频格式");
-                return response;
+            if (!isValidVideoFormat(source.getOriginalFilename())) {
+                prepared.failure = new FrameExtractionResponse(false, "不支持的视频格式");
+                prepared.close();
+                return;
             }
             
-            // 保存临时文件
-            File tempFile = saveTemporaryFile(videoFile);
+            // 按头部探测的视频信息估算成本并预留预算；
+            // 分段解码在合并前保留各段全部帧的编码数据，与返回完整结果一样计入内存
+            VideoInfo estimatedInfo = probeForAdmission(source, prepared.timings);
+            prepared.segmented = prepared.allowSegments && source.isSeekable()
+                && shouldExtractInSegments(request, estimatedInfo);
+            boolean keepFrames = prepared.segmented
+                || (prepared.retainFrames && request.getSink() == FrameExtractionRequest.Sink.INLINE);
+            prepared.permit = admissionController.acquire(
+                estimateCost(request, estimatedInfo, prepared.segmented, keepFrames));
             
-            try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(tempFile)) {
-                grabber.start();
-                
-                // 获取视频信息
-                VideoInfo videoInfo = new VideoInfo(
-                    videoFile.getOriginalFilename(),
-                    grabber.getLengthInTime() / 1000,
-                    grabber.getFrameRate(),
-                    grabber.getImageWidth(),
-                    grabber.getImageHeight(),
-                    videoFile.getSize(),
-                    getFileExtension(videoFile.getOriginalFilename())
-                );
+            prepared.grabber = source.createGrabber(prepared.timings);
+            prepared.decoderThreads = decoderThreadScheduler.configure(prepared.grabber);
+            configureGrabber(prepared.grabber, request);
+            prepared.grabber.start();
+            
+            // 获取视频信息
+            videoInfo = createVideoInfo(source, prepared.grabber);
+            applyOutputSize(prepared.grabber, request, videoInfo);
+            prepared.videoInfo = videoInfo;
+        } catch (Exception e) {
+            prepared.failure = createFailure(source, e);
+            prepared.failure.setVideoInfo(videoInfo);
+            prepared.close();
+        }
+    }
+
+    /**
+     * 准入估算用的视频信息
+     * 可跳转的视频源只读取容器头部探测（已缓存的视频直接使用缓存的探测结果），探测用的grabber随即关闭；
+     * 边上传边解码的视频源使用打开时由上传流开头探测到的信息，没有时按1080p、时长未知估算
+     */
+    private VideoInfo probeForAdmission(VideoSource source, ExtractionTimings timings) throws Exception {
+        long probeStartNanos = System.nanoTime();
+        VideoInfo videoInfo = source.isSeekable() ? probeVideoInfo(source) : source.getHeaderInfo();
+        timings.record(ExtractionTimings.Stage.OPEN, probeStartNanos);
+        if (videoInfo == null || videoInfo.getWidth() <= 0) {
+            videoInfo = new VideoInfo(source.getOriginalFilename(), 0, 25.0, 1920, 1080, source.getFileSize(),
+                getFileExtension(source.getOriginalFilename()));
+        }
+        return videoInfo;
+    }
+
+    /**
+     * 执行已准备好的提取并释放其资源，准备阶段失败时直接返回失败响应
+     */
+    private FrameExtractionResponse runExtraction(PreparedExtraction prepared, Consumer<VideoInfo> videoInfoConsumer,
+            Consumer<FrameExtractionResponse.FrameData> frameConsumer) {
+        FrameExtractionRequest request = prepared.request;
+        ExtractionTimings timings = prepared.timings;
+        FrameExtractionResponse response = prepared.failure;
+        AsyncFrameWriter frameWriter = null;
+        
+        if (response == null) {
+            response = new FrameExtractionResponse();
+            VideoSource source = prepared.source;
+            FFmpegFrameGrabber grabber = prepared.grabber;
+            VideoInfo videoInfo = prepared.videoInfo;
+            try {
                 response.setVideoInfo(videoInfo);
+                videoInfoConsumer.accept(videoInfo);
+                
+                // 帧输出到磁盘或对象存储时，图片交给写入器，帧数据只保留位置
+                AsyncFrameWriter writer = frameStorage.openWriter(request.getSink(), timings);
+                frameWriter = writer;
                 
-                // 提取帧
-                List<FrameExtractionResponse.FrameData> frames = extractFramesFromVideo(
-                    grabber, request, videoInfo);
+                // 提取帧：时间范围超过一个分块时分段并行解码，否则沿用单线程顺序解码
+                int[] frameCount = new int[1];
+                Consumer<FrameExtractionResponse.FrameData> countingConsumer = frameData -> {
+                    if (writer != null && frameData.getImageData() != null) {
+                        String fileName = BinaryFrameWriter.frameFileName(frameData.getFrameNumber(),
+                            resolveOutputFormat(request));
+                        try {
+                            frameData.setFileName(writer.submit(fileName, frameData.getImageData()));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        frameData.setImageData(null);
+                    }
+                    // 帧缓存命中的帧只带图片字节，JSON响应在此编码为base64
+                    if (!request.isBinaryOutput() && frameData.getImageData() != null) {
+                        long base64StartNanos = System.nanoTime();
+                        frameData.setBase64Data(Base64.getEncoder().encodeToString(frameData.getImageData()));
+                        frameData.setImageData(null);
+                        timings.record(ExtractionTimings.Stage.BASE64, base64StartNanos);
+                    }
+                    frameConsumer.accept(frameData);
+                    timings.addFrame();
+                    frameCount[0]++;
+                };
+                KeyframeIndex keyframeIndex = shouldUseKeyframeIndex(source, request, videoInfo)
+                    ? getKeyframeIndex(source, grabber) : null;
+                FrameDeduplicator deduplicator = request.getDedup() != FrameExtractionRequest.Dedup.NONE
+                    ? new FrameDeduplicator(request.getDedup(), request.getDedupDistance()) : null;
+                if (prepared.segmented) {
+                    // 各分段使用独立的解码器，探测用的grabber之后只查找关键帧，先归还其解码线程
+                    prepared.releaseDecoderThreads();
+                    extractFramesInSegments(source.getFile(), grabber, request, videoInfo, keyframeIndex,
+                        countingConsumer, timings);
+                } else {
+                    extractFramesFromVideo(grabber, request, videoInfo, keyframeIndex, countingConsumer,
+                        !source.isSeekable(), deduplicator, timings);
+                }
+                if (writer != null) {
+                    writer.finish();
+                }
                 
-                response.setFrames(frames);
-                response.setTotalFramesExtracted(frames.size());
+                response.setTotalFramesExtracted(frameCount[0]);
+                if (deduplicator != null) {
+                    response.setDuplicateFramesDropped(deduplicator.getDroppedFrames());
+                }
                 response.setSuccess(true);
                 response.setMessage("帧提取成功");
                 
-                logger.info("视频帧提取完成，共提取 {} 帧", frames.size());
-                
+                logger.info("视频帧提取完成，共提取 {} 帧", frameCount[0]);
+            } catch (Exception e) {
+                FrameExtractionResponse failure = createFailure(source, e);
+                response.setSuccess(false);
+                response.setMessage(failure.getMessage());
             } finally {
-                // 清理临时文件
-                if (tempFile.exists()) {
-                    tempFile.delete();
-                }
+                prepared.close();
             }
-            
-        } catch (Exception e) {
-            logger.error("视频帧提取失败: {}", e.getMessage(), e);
-            response.setSuccess(false);
-            response.setMessage("视频处理失败: " + e.getMessage());
+        }
+        if (!response.isSuccess() && frameWriter != null) {
+            frameWriter.cancel();
         }
         
-        response.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+        finishExtraction(prepared, response);
         return response;
     }
 
     /**
-     * 从视频中提取帧
+     * 准入被拒绝时记录本次提取并抛出 AdmissionRejectedException，否则原样返回
      */
-    private List<FrameExtractionResponse.FrameData> extractFramesFromVideo(
-            FFmpegFrameGrabber grabber, FrameExtractionRequest request, VideoInfo videoInfo) throws Exception {
-        
-        List<FrameExtractionResponse.FrameData> frames = new ArrayList<>();
+    private PreparedExtraction rejectIfOverBudget(PreparedExtraction prepared) {
+        FrameExtractionResponse failure = prepared.getFailure();
+        if (failure != null && failure.getRetryAfterSeconds() != null) {
+            finishExtraction(prepared, failure);
+            throw new AdmissionRejectedException(failure.getMessage(), failure.getRetryAfterSeconds());
+        }
+        return prepared;
+    }
+
+    /**
+     * 记录处理耗时、指标与各阶段耗时
+     */
+    private void finishExtraction(PreparedExtraction prepared, FrameExtractionResponse response) {
+        response.setProcessingTimeMs(System.currentTimeMillis() - prepared.startTime);
+        extractionMetrics.extractionFinished(prepared.request.getMode().name(), response.isSuccess(),
+            response.getProcessingTimeMs());
+        if (prepared.request.getIncludeTimings()) {
+            response.setStageTimings(prepared.timings.toMillis());
+        }
+    }
+
+    /**
+     * 根据提取中的异常创建失败响应：准入被拒绝时带建议的重试间隔，线程被中断时恢复中断状态
+     */
+    private FrameExtractionResponse createFailure(VideoSource source, Exception e) {
+        if (e instanceof AdmissionRejectedException rejected) {
+            FrameExtractionResponse response = new FrameExtractionResponse(false, rejected.getMessage());
+            response.setRetryAfterSeconds(rejected.getRetryAfterSeconds());
+            return response;
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+            logger.info("视频帧提取已取消: {}", source.getOriginalFilename());
+            return new FrameExtractionResponse(false, "帧提取已取消");
+        }
+        // 帧写入磁盘或对象存储失败时为 UncheckedIOException
+        Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+        logger.error("视频帧提取失败: {}", cause.getMessage(), e);
+        return new FrameExtractionResponse(false, "视频处理失败: " + cause.getMessage());
+    }
+
+    /**
+     * 估算一次提取的成本，用于准入控制
+     * CPU：解码线程数（分段并行时为并行的分段数）按源分辨率相对1080p加权（0.25-4倍），
+     * 逐帧或间隔不超过1秒取帧时编码同样持续占用CPU，再加一份；png编码较慢、bmp较快，返回base64时再加10%。
+     * 内存：解码器内部缓冲的帧、编码流水线的在途帧，以及需要保留完整结果时所有帧的编码数据
+     * （base64 字符串与JSON序列化各占一份，约为编码数据的2.7倍）。
+     */
+    private AdmissionController.Cost estimateCost(FrameExtractionRequest request, VideoInfo videoInfo,
+            boolean segmented, boolean keepFrames) {
+        int[] range = resolveTimeRangeMs(request, videoInfo);
+        long rangeMs = Math.max(0, range[1] - range[0]);
+        long sourcePixels = Math.max(1L, (long) videoInfo.getWidth() * videoInfo.getHeight());
+        int[] outputSize = resolveOutputSize(request, videoInfo);
+        int channels = request.getPixelFormat() == FrameExtractionRequest.PixelFormat.GRAY8 ? 1 : 3;
+        long frameBytes = Math.max(1L, (long) outputSize[0] * outputSize[1] * channels);
+        String outputFormat = resolveOutputFormat(request);
+        boolean base64 = request.getReturnBase64() && !request.isBinaryOutput()
+            && request.getSink() == FrameExtractionRequest.Sink.INLINE;
+
+        int decodeThreads = 1;
+        if (segmented) {
+            long chunkMs = chunkDurationSeconds * 1000L;
+            decodeThreads = (int) Math.max(1, Math.min(threadPoolSize, (rangeMs + chunkMs - 1) / chunkMs));
+        }
+        boolean dense = request.getMode() != FrameExtractionRequest.Mode.DEFAULT
+            || request.getIntervalSeconds() == null || request.getIntervalSeconds() <= 1;
+        double resolutionWeight = Math.max(0.25, Math.min(4.0, sourcePixels / REFERENCE_PIXELS));
+        double formatWeight = "png".equals(outputFormat) ? 1.5 : "bmp".equals(outputFormat) ? 0.75 : 1.0;
+        double cpuSlots = (decodeThreads + (dense ? 1 : 0)) * resolutionWeight * formatWeight * (base64 ? 1.1 : 1.0);
+
+        // 关键帧与场景变化模式无法预估帧数，按每秒一帧估算
+        int frames = estimateFrameCount(request, videoInfo);
+        if (frames == 0) {
+            frames = (int) Math.max(1, rangeMs / 1000);
+        }
+        long decoderBytes = decodeThreads * sourcePixels * 3 / 2 * DECODER_BUFFERED_FRAMES;
+        long pipelineBytes = decodeThreads * Math.min(bufferSizeMb * 1024L * 1024L, frames * frameBytes);
+        long resultBytes = 0;
+        if (keepFrames && request.getReturnBase64()) {
+            double bytesPerPixel = "png".equals(outputFormat) ? 1.5 : "bmp".equals(outputFormat) ? 3.0 : 0.3;
+            long encodedBytes = (long) (frameBytes / 3.0 * bytesPerPixel);
+            resultBytes = (long) (frames * encodedBytes * (base64 ? 8 / 3.0 : 1.0));
+        }
+        return new AdmissionController.Cost(cpuSlots, decoderBytes + pipelineBytes + resultBytes);
+    }
+
+    /**
+     * 根据已启动的grabber创建视频信息
+     */
+    private VideoInfo createVideoInfo(VideoSource source, FFmpegFrameGrabber grabber) {
+        AVFormatContext formatContext = grabber.getFormatContext();
+        int videoStreamIndex = findVideoStreamIndex(formatContext);
+        AVStream videoStream = videoStreamIndex >= 0 ? formatContext.streams(videoStreamIndex) : null;
         
-        double frameRate = videoInfo.getFrameRate();
-        long videoDurationMs = videoInfo.getDuration();
+        long durationUs = grabber.getLengthInTime();
+        if (durationUs <= 0 && videoStream != null && videoStream.duration() != AV_NOPTS_VALUE) {
+            // 容器未给出时长时使用视频流头部记录的时长
+            durationUs = av_rescale_q(videoStream.duration(), videoStream.time_base(), av_make_q(1, 1000000));
+        }
+        VideoInfo videoInfo = new VideoInfo(
+            source.getOriginalFilename(),
+            durationUs / 1000, // 转换为毫秒
+            grabber.getFrameRate(),
+            grabber.getImageWidth(),
+            grabber.getImageHeight(),
+            source.getFileSize(),
+            getFileExtension(source.getOriginalFilename())
+        );
+        // 容器记录了视频流的帧数（如mp4的stsz）时使用该值，否则按时长与帧率估算
+        if (videoStream != null && videoStream.nb_frames() > 0) {
+            videoInfo.setTotalFrames((int) videoStream.nb_frames());
+        }
+        videoInfo.setVideoId(source.getVideoId());
+        return videoInfo;
+    }
+
+    /**
+     * 根据缓存的探测结果创建视频信息，文件名与格式取自本次请求的视频源
+     */
+    private VideoInfo createVideoInfo(VideoSource source, VideoInfo cachedInfo) {
+        VideoInfo videoInfo = new VideoInfo(
+            source.getOriginalFilename(),
+            cachedInfo.getDuration(),
+            cachedInfo.getFrameRate(),
+            cachedInfo.getWidth(),
+            cachedInfo.getHeight(),
+            source.getFileSize(),
+            getFileExtension(source.getOriginalFilename())
+        );
+        videoInfo.setTotalFrames(cachedInfo.getTotalFrames());
+        videoInfo.setVideoId(source.getVideoId());
+        return videoInfo;
+    }
+
+    /**
+     * 从视频中提取帧
+     */
+    private void extractFramesFromVideo(FFmpegFrameGrabber grabber, FrameExtractionRequest request,
+            VideoInfo videoInfo, KeyframeIndex keyframeIndex,
+            Consumer<FrameExtractionResponse.FrameData> frameConsumer, boolean forwardOnly,
+            FrameDeduplicator deduplicator, ExtractionTimings timings) throws Exception {
         
         // 计算提取参数
-        int startTimeMs = (request.getStartTimeSeconds() != null ? request.getStartTimeSeconds() : 0) * 1000;
-        int endTimeMs = request.getEndTimeSeconds() != null ? 
-            request.getEndTimeSeconds() * 1000 : (int) videoDurationMs;
+        int[] range = resolveTimeRangeMs(request, videoInfo);
+        int startTimeMs = range[0];
+        int endTimeMs = range[1];
         
-        // 如果指定了间隔秒数，按间隔提取
-        if (request.getIntervalSeconds() != null) {
-            extractFramesByInterval(grabber, frames, request, startTimeMs, endTimeMs, frameRate);
-        } else {
-            // 按原帧率提取所有帧
-            extractAllFrames(grabber, frames, request, startTimeMs, endTimeMs, frameRate);
+        FrameExtractionRequest.Mode mode = request.getMode();
+        boolean byInterval = mode == FrameExtractionRequest.Mode.DEFAULT && request.getIntervalSeconds() != null;
+        // 流式容器头部可能没有时长信息，未指定结束时间时解码到流结束
+        if (forwardOnly && request.getEndTimeSeconds() == null && videoInfo.getDuration() <= 0) {
+            endTimeMs = Integer.MAX_VALUE;
+        }
+        FrameEncodePipeline pipeline = createEncodePipeline(request, videoInfo,
+            new FrameSequencer(!byInterval && mode == FrameExtractionRequest.Mode.DEFAULT
+                && !request.isSpriteOutput(), frameConsumer),
+            deduplicator, timings);
+        try {
+            if (mode == FrameExtractionRequest.Mode.KEYFRAMES) {
+                // 只提取关键帧
+                extractKeyframes(grabber, pipeline, startTimeMs, endTimeMs, !forwardOnly);
+            } else if (mode == FrameExtractionRequest.Mode.SCENE_CHANGE) {
+                // 逐帧检测画面变化，只提交变化的帧
+                extractSceneChanges(grabber, pipeline, createSceneChangeDetector(request),
+                    startTimeMs, endTimeMs, !forwardOnly);
+            } else if (forwardOnly) {
+                // 输入流不能跳转，只能从头顺序解码
+                extractFramesForward(grabber, pipeline, request, startTimeMs, endTimeMs);
+            } else if (byInterval) {
+                // 如果指定了间隔秒数，按间隔提取
+                extractFramesByInterval(grabber, pipeline, request, videoInfo, keyframeIndex,
+                    startTimeMs, endTimeMs, startTimeMs * 1000L, Long.MAX_VALUE);
+            } else {
+                // 按原帧率提取所有帧
+                extractAllFrames(grabber, pipeline, startTimeMs, endTimeMs,
+                    startTimeMs * 1000L, Long.MAX_VALUE, true);
+            }
+            pipeline.finish();
+        } catch (Exception e) {
+            pipeline.cancel();
+            throw e;
         }
-        
-        return frames;
     }
 
     /**
-     * 按间隔提取帧
+     * 提取时间范围内的关键帧，时间戳为关键帧的实际时间
+     * grabber 已设置 skip_frame=nokey，解码器不会输出非关键帧；不支持该选项的解码器再按帧的关键帧标记过滤
      */
-    private void extractFramesByInterval(FFmpegFrameGrabber grabber, 
-            List<FrameExtractionResponse.FrameData> frames,
-            FrameExtractionRequest request, int startTimeMs, int endTimeMs, double frameRate) throws Exception {
+    private void extractKeyframes(FFmpegFrameGrabber grabber, FrameEncodePipeline pipeline,
+            int startTimeMs, int endTimeMs, boolean seekable) throws Exception {
         
-        int intervalMs = request.getIntervalSeconds() * 1000;
+        // 跳转到开始时间
+        if (seekable && startTimeMs > 0) {
+            grabber.setTimestamp(startTimeMs * 1000L);
+        }
         
-        for (int currentTimeMs = startTimeMs; currentTimeMs < endTimeMs; currentTimeMs += intervalMs) {
-            // 跳转到指定时间
-            grabber.setTimestamp(currentTimeMs * 1000); // FFmpeg使用微秒
+        Frame frame;
+        while ((frame = grabber.grabImage()) != null) {
+            checkInterrupted();
+            long currentTimeMs = grabber.getTimestamp() / 1000;
             
-            Frame frame = grabber.grabImage();
-            if (frame != null) {
-                FrameExtractionResponse.FrameData frameData = convertFrameToData(
-                    frame, currentTimeMs / 1000.0, frames.size() + 1, request);
-                if (frameData != null) {
-                    frames.add(frameData);
-                }
+            if (currentTimeMs > endTimeMs) {
+                break;
+            }
+            if (frame.keyFrame && currentTimeMs >= startTimeMs) {
+                pipeline.submit(frame, currentTimeMs / 1000.0);
             }
         }
     }
 
     /**
-     * 提取所有帧
+     * 顺序解码时间范围内的所有帧，只把场景变化检测选中的帧提交编码，时间戳为帧的实际时间
      */
-    private void extractAllFrames(FFmpegFrameGrabber grabber,
-            List<FrameExtractionResponse.FrameData> frames,
-            FrameExtractionRequest request, int startTimeMs, int endTimeMs, double frameRate) throws Exception {
+    private void extractSceneChanges(FFmpegFrameGrabber grabber, FrameEncodePipeline pipeline,
+            SceneChangeDetector detector, int startTimeMs, int endTimeMs, boolean seekable) throws Exception {
         
         // 跳转到开始时间
-        if (startTimeMs > 0) {
-            grabber.setTimestamp(startTimeMs * 1000);
+        if (seekable && startTimeMs > 0) {
+            grabber.setTimestamp(startTimeMs * 1000L);
         }
         
         Frame frame;
-        int frameNumber = 1;
-        
         while ((frame = grabber.grabImage()) != null) {
-            long currentTimeMs = grabber.getTimestamp() / 1000; // 转换为毫秒
+            checkInterrupted();
+            long currentTimeMs = grabber.getTimestamp() / 1000;
             
             if (currentTimeMs > endTimeMs) {
                 break;
             }
-            
-            if (currentTimeMs >= startTimeMs) {
-                FrameExtractionResponse.FrameData frameData = convertFrameToData(
-                    frame, currentTimeMs / 1000.0, frameNumber++, request);
-                if (frameData != null) {
-                    frames.add(frameData);
-                }
+            if (currentTimeMs >= startTimeMs && detector.accept(frame, currentTimeMs)) {
+                pipeline.submit(frame, currentTimeMs / 1000.0);
             }
         }
     }
 
+    private SceneChangeDetector createSceneChangeDetector(FrameExtractionRequest request) {
+        long minIntervalMs = request.getMinSceneIntervalSeconds() != null
+            ? Math.round(request.getMinSceneIntervalSeconds() * 1000) : 0;
+        long maxIntervalMs = request.getMaxSceneIntervalSeconds() != null
+            ? Math.round(request.getMaxSceneIntervalSeconds() * 1000) : 0;
+        return new SceneChangeDetector(request.getSceneThreshold(), minIntervalMs, maxIntervalMs);
+    }
+
     /**
-     * 将Frame转换为FrameData
+     * 只向前顺序解码提取帧，用于不能跳转的输入流
+     * 按间隔提取时，每个采样时间点取第一个时间戳不早于该时间点的帧，与跳转后解码的结果一致
      */
-    private FrameExtractionResponse.FrameData convertFrameToData(
-            Frame frame, double timestampSeconds, int frameNumber, FrameExtractionRequest request) {
+    private void extractFramesForward(FFmpegFrameGrabber grabber, FrameEncodePipeline pipeline,
+            FrameExtractionRequest request, int startTimeMs, int endTimeMs) throws Exception {
+        
+        if (request.getIntervalSeconds() != null) {
+            extractFramesByIntervalSequentially(grabber, pipeline, request.getIntervalSeconds() * 1000,
+                startTimeMs, endTimeMs, Long.MAX_VALUE, null);
+            return;
+        }
+        
+        Frame frame;
+        while ((frame = grabber.grabImage()) != null) {
+            checkInterrupted();
+            long currentTimeMs = grabber.getTimestamp() / 1000;
+            
+            if (currentTimeMs > endTimeMs) {
+                break;
+            }
+            if (currentTimeMs >= startTimeMs) {
+                pipeline.submit(frame, currentTimeMs / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * 按间隔提取帧，只处理落在 [分段开始, 分段结束) 内的采样时间点
+     * 根据关键帧索引选择逐点跳转或一次跳转后顺序解码；跳转前先查找帧缓存，命中的时间点不再解码
+     */
+    private void extractFramesByInterval(FFmpegFrameGrabber grabber, FrameEncodePipeline pipeline,
+            FrameExtractionRequest request, VideoInfo videoInfo, KeyframeIndex keyframeIndex,
+            int startTimeMs, int endTimeMs, long segmentStartUs, long segmentEndUs) throws Exception {
+        
+        int intervalMs = request.getIntervalSeconds() * 1000;
+        String cacheKeyPrefix = getFrameCacheKeyPrefix(request, videoInfo);
+        
+        if (shouldDecodeSequentially(intervalMs, keyframeIndex)) {
+            // 分段内第一个采样时间点
+            long firstSampleMs = startTimeMs;
+            if (segmentStartUs > startTimeMs * 1000L) {
+                long intervalUs = intervalMs * 1000L;
+                firstSampleMs += (segmentStartUs - startTimeMs * 1000L + intervalUs - 1) / intervalUs * intervalMs;
+            }
+            if (firstSampleMs >= endTimeMs || firstSampleMs * 1000 >= segmentEndUs) {
+                return;
+            }
+            grabber.setTimestamp(firstSampleMs * 1000);
+            extractFramesByIntervalSequentially(grabber, pipeline, intervalMs, firstSampleMs, endTimeMs,
+                segmentEndUs, cacheKeyPrefix);
+            return;
+        }
+        
+        for (int currentTimeMs = startTimeMs; currentTimeMs < endTimeMs; currentTimeMs += intervalMs) {
+            long currentTimeUs = currentTimeMs * 1000L;
+            if (currentTimeUs < segmentStartUs || currentTimeUs >= segmentEndUs) {
+                continue;
+            }
+            checkInterrupted();
+            
+            if (cacheKeyPrefix != null) {
+                FrameExtractionResponse.FrameData cached = frameCache.get(cacheKeyPrefix, currentTimeMs);
+                if (cached != null) {
+                    pipeline.submitCompleted(cached);
+                    continue;
+                }
+            }
+            
+            // 跳转到指定时间
+            grabber.setTimestamp(currentTimeUs); // FFmpeg使用微秒
+            
+            Frame frame = grabber.grabImage();
+            if (frame != null) {
+                pipeline.submit(frame, currentTimeMs / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * 从当前位置顺序解码，按间隔提取帧
+     * 每个采样时间点取第一个时间戳不早于该时间点的帧，与跳转到该时间点后解码的结果一致；
+     * 采样时间点须小于结束时间且小于分段结束时间
+     */
+    private void extractFramesByIntervalSequentially(FFmpegFrameGrabber grabber, FrameEncodePipeline pipeline,
+            int intervalMs, long firstSampleMs, int endTimeMs, long segmentEndUs, String cacheKeyPrefix)
+            throws Exception {
+        
+        long nextSampleMs = firstSampleMs;
+        while (true) {
+            // 帧缓存中已有的采样时间点直接输出
+            while (cacheKeyPrefix != null && isSampleInRange(nextSampleMs, endTimeMs, segmentEndUs)) {
+                FrameExtractionResponse.FrameData cached = frameCache.get(cacheKeyPrefix, nextSampleMs);
+                if (cached == null) {
+                    break;
+                }
+                pipeline.submitCompleted(cached);
+                nextSampleMs += intervalMs;
+            }
+            if (!isSampleInRange(nextSampleMs, endTimeMs, segmentEndUs)) {
+                return;
+            }
+            checkInterrupted();
+            
+            Frame frame = grabber.grabImage();
+            if (frame == null) {
+                return;
+            }
+            long currentTimeUs = grabber.getTimestamp();
+            
+            // 同一帧可能是多个采样时间点的最近帧（例如帧率低于采样频率）
+            while (isSampleInRange(nextSampleMs, endTimeMs, segmentEndUs) && nextSampleMs * 1000 <= currentTimeUs) {
+                pipeline.submit(frame, nextSampleMs / 1000.0);
+                nextSampleMs += intervalMs;
+            }
+        }
+    }
+
+    private boolean isSampleInRange(long sampleMs, int endTimeMs, long segmentEndUs) {
+        return sampleMs < endTimeMs && sampleMs * 1000 < segmentEndUs;
+    }
+
+    /**
+     * 选择按间隔提取的解码方式
+     * 一个GOP（长度G）内的采样点距关键帧依次为 0, I, 2I...，逐点跳转时每个采样点平均要解码 (G-I)/2，
+     * 顺序解码时每个采样点要解码一个间隔 I；I 不超过 (G-I)/2，即 3I <= G 时顺序解码的解码量更少，
+     * 也省去了每次跳转清空解码器的开销
+     */
+    private boolean shouldDecodeSequentially(int intervalMs, KeyframeIndex keyframeIndex) {
+        if (keyframeIndex == null || keyframeIndex.getAverageGopUs() <= 0) {
+            return false;
+        }
+        return intervalMs * 1000L * 3 <= keyframeIndex.getAverageGopUs();
+    }
+
+    /**
+     * 只有按间隔提取多个采样点、且解码方式取决于GOP长度时才需要关键帧索引；
+     * GOP不会超过视频时长，3倍间隔超过时长时必然逐点跳转
+     */
+    private boolean shouldUseKeyframeIndex(VideoSource source, FrameExtractionRequest request, VideoInfo videoInfo) {
+        if (!source.isSeekable() || request.getMode() != FrameExtractionRequest.Mode.DEFAULT
+                || request.getIntervalSeconds() == null || estimateFrameCount(request, videoInfo) <= 1) {
+            return false;
+        }
+        return videoInfo.getDuration() <= 0 || request.getIntervalSeconds() * 1000L * 3 <= videoInfo.getDuration();
+    }
+
+    /**
+     * 获取视频的关键帧索引，已缓存的视频只建立一次
+     */
+    private KeyframeIndex getKeyframeIndex(VideoSource source, FFmpegFrameGrabber grabber) throws Exception {
+        if (source.getVideoId() != null) {
+            KeyframeIndex cached = videoCache.getKeyframeIndex(source.getVideoId());
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        long startTime = System.currentTimeMillis();
+        KeyframeIndex keyframeIndex = buildKeyframeIndex(grabber);
+        if (keyframeIndex != null) {
+            logger.info("关键帧索引建立完成: {} 个关键帧{}，平均GOP {}ms，耗时 {}ms", keyframeIndex.getKeyframeCount(),
+                keyframeIndex.isComplete() ? "" : "（估算）", keyframeIndex.getAverageGopUs() / 1000,
+                System.currentTimeMillis() - startTime);
+            if (source.getVideoId() != null) {
+                videoCache.putKeyframeIndex(source.getVideoId(), keyframeIndex);
+            }
+        }
+        return keyframeIndex;
+    }
+
+    /**
+     * 建立关键帧索引，没有视频流时返回null
+     * 优先使用容器解析时已读入的索引（mp4/mov 的样本表），不读取任何数据包；
+     * 没有逐帧的容器索引时只读取开头 SAMPLED_GOP_COUNT 个GOP的数据包估算GOP长度，之后grabber需要重新跳转
+     */
+    private KeyframeIndex buildKeyframeIndex(FFmpegFrameGrabber grabber) throws Exception {
+        AVFormatContext formatContext = grabber.getFormatContext();
+        int videoStreamIndex = findVideoStreamIndex(formatContext);
+        if (videoStreamIndex < 0) {
+            return null;
+        }
+        
+        AVStream stream = formatContext.streams(videoStreamIndex);
+        KeyframeIndex containerIndex = readContainerIndex(stream);
+        return containerIndex != null ? containerIndex : scanKeyframes(grabber, stream, videoStreamIndex);
+    }
+
+    /**
+     * 从容器索引中取关键帧，索引中没有非关键帧时返回null
+     * 只有关键帧的索引（如 mkv 的 Cues）可能只记录了部分关键帧，不能用来估算GOP长度；
+     * 容器索引的时间为解码时间戳，只用于估算GOP长度
+     */
+    private KeyframeIndex readContainerIndex(AVStream stream) {
+        int entryCount = avformat_index_get_entries_count(stream);
+        if (entryCount < 2) {
+            return null;
+        }
+        
+        long firstTimestamp = avformat_index_get_entry(stream, 0).timestamp();
+        long lastTimestamp = firstTimestamp;
+        List<Long> keyframes = new ArrayList<>();
+        boolean hasNonKeyframes = false;
+        for (int i = 0; i < entryCount; i++) {
+            AVIndexEntry entry = avformat_index_get_entry(stream, i);
+            if ((entry.flags() & AVIndexEntry.AVINDEX_DISCARD_FRAME) != 0) {
+                continue;
+            }
+            lastTimestamp = Math.max(lastTimestamp, entry.timestamp());
+            if ((entry.flags() & AVIndexEntry.AVINDEX_KEYFRAME) != 0) {
+                keyframes.add(av_rescale_q(entry.timestamp() - firstTimestamp, stream.time_base(),
+                    av_make_q(1, 1000000)));
+            } else {
+                hasNonKeyframes = true;
+            }
+        }
+        if (!hasNonKeyframes || keyframes.isEmpty()) {
+            return null;
+        }
+        
+        long[] keyframeTimesUs = keyframes.stream().mapToLong(Long::longValue).toArray();
+        return new KeyframeIndex(keyframeTimesUs,
+            av_rescale_q(lastTimestamp - firstTimestamp, stream.time_base(), av_make_q(1, 1000000)), false);
+    }
+
+    /**
+     * 读取数据包（不解码）收集关键帧的显示时间，读到第 SAMPLED_GOP_COUNT + 1 个关键帧时停止；
+     * 在此之前读到文件末尾时得到完整的索引
+     */
+    private KeyframeIndex scanKeyframes(FFmpegFrameGrabber grabber, AVStream stream, int videoStreamIndex)
+            throws Exception {
+        long startTime = stream.start_time() != AV_NOPTS_VALUE ? stream.start_time() : 0;
+        List<Long> keyframes = new ArrayList<>();
+        long endPts = 0;
+        
+        AVPacket packet;
+        while ((packet = grabber.grabPacket()) != null) {
+            if (packet.stream_index() != videoStreamIndex) {
+                continue;
+            }
+            long pts = packet.pts() != AV_NOPTS_VALUE ? packet.pts() : packet.dts();
+            if (pts == AV_NOPTS_VALUE) {
+                continue;
+            }
+            if ((packet.flags() & AV_PKT_FLAG_KEY) != 0) {
+                if (keyframes.size() == SAMPLED_GOP_COUNT) {
+                    // 已读取的关键帧覆盖到当前关键帧为止
+                    long[] keyframeTimesUs = keyframes.stream().mapToLong(Long::longValue).toArray();
+                    return new KeyframeIndex(keyframeTimesUs,
+                        av_rescale_q(pts - startTime, stream.time_base(), av_make_q(1, 1000000)), false);
+                }
+                keyframes.add(av_rescale_q(pts - startTime, stream.time_base(), av_make_q(1, 1000000)));
+            }
+            endPts = Math.max(endPts, pts + Math.max(0, packet.duration()));
+        }
+        
+        long[] keyframeTimesUs = keyframes.stream().mapToLong(Long::longValue).toArray();
+        return new KeyframeIndex(keyframeTimesUs,
+            av_rescale_q(endPts - startTime, stream.time_base(), av_make_q(1, 1000000)));
+    }
+
+    /**
+     * 提取所有帧，只保留时间戳落在 [分段开始, 分段结束) 内的帧，最后一个分段包含结束时间
+     */
+    private void extractAllFrames(FFmpegFrameGrabber grabber, FrameEncodePipeline pipeline,
+            int startTimeMs, int endTimeMs, long segmentStartUs, long segmentEndUs,
+            boolean lastSegment) throws Exception {
+        
+        // 跳转到开始时间
+        if (segmentStartUs > 0) {
+            grabber.setTimestamp(segmentStartUs);
+        }
+        
+        Frame frame;
+        
+        while ((frame = grabber.grabImage()) != null) {
+            checkInterrupted();
+            long currentTimeUs = grabber.getTimestamp();
+            long currentTimeMs = currentTimeUs / 1000; // 转换为毫秒
+            
+            if (currentTimeMs > endTimeMs || (!lastSegment && currentTimeUs >= segmentEndUs)) {
+                break;
+            }
+            
+            if (currentTimeUs >= segmentStartUs && currentTimeMs >= startTimeMs) {
+                pipeline.submit(frame, currentTimeMs / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * 创建编码流水线，deduplicator 为null时不去重
+     * 在途帧上限由 buffer-size（MB）除以单帧解码输出的大小（缩放后的尺寸与像素格式）得到，
+     * 雪碧图按整张拼图的大小计算
+     */
+    private FrameEncodePipeline createEncodePipeline(FrameExtractionRequest request, VideoInfo videoInfo,
+            Consumer<FrameExtractionResponse.FrameData> downstream, FrameDeduplicator deduplicator,
+            ExtractionTimings timings) {
+        int[] outputSize = resolveOutputSize(request, videoInfo);
+        int channels = request.getPixelFormat() == FrameExtractionRequest.PixelFormat.GRAY8 ? 1 : 3;
+        long frameBytes = Math.max(1L, (long) outputSize[0] * outputSize[1] * channels);
+        if (request.isSpriteOutput()) {
+            frameBytes *= (long) request.getSpriteColumns() * request.getSpriteRows();
+        }
+        int capacity = (int) Math.max(1L, Math.min(Integer.MAX_VALUE, bufferSizeMb * 1024L * 1024L / frameBytes));
+        if (request.isSpriteOutput()) {
+            return new SpriteSheetPipeline(encodeExecutor, capacity,
+                (frame, timestampSeconds) -> convertFrameToData(frame, timestampSeconds, 0, request, null, timings),
+                downstream, deduplicator, request.getSpriteColumns(), request.getSpriteRows());
+        }
+        // 只缓存按间隔提取的帧
+        boolean byInterval = request.getMode() == FrameExtractionRequest.Mode.DEFAULT
+            && request.getIntervalSeconds() != null;
+        String cacheKeyPrefix = byInterval ? getFrameCacheKeyPrefix(request, videoInfo) : null;
+        return new FrameEncodePipeline(encodeExecutor, capacity,
+            (frame, timestampSeconds) -> convertFrameToData(frame, timestampSeconds, 0, request, cacheKeyPrefix,
+                timings),
+            downstream, deduplicator);
+    }
+
+    /**
+     * 帧缓存键前缀，只有已缓存的视频且需要返回编码数据时才使用帧缓存，否则返回null
+     * 相似帧去重需要解码后的图像计算哈希，雪碧图需要解码后的图像拼接，都不使用帧缓存
+     */
+    private String getFrameCacheKeyPrefix(FrameExtractionRequest request, VideoInfo videoInfo) {
+        if (!request.getReturnBase64() || request.getDedup() != FrameExtractionRequest.Dedup.NONE
+                || request.isSpriteOutput()) {
+            return null;
+        }
+        int[] outputSize = resolveOutputSize(request, videoInfo);
+        String variant = outputSize[0] + "x" + outputSize[1] + ":" + request.getPixelFormat();
+        return frameCache.keyPrefix(videoInfo.getVideoId(), resolveOutputFormat(request), resolveImageQuality(request),
+            variant);
+    }
+
+    /**
+     * 启动grabber之前设置解码选项：关键帧模式跳过非关键帧，设置输出像素格式
+     */
+    private void configureGrabber(FFmpegFrameGrabber grabber, FrameExtractionRequest request) {
+        if (request.getMode() == FrameExtractionRequest.Mode.KEYFRAMES) {
+            // 解码器跳过所有非关键帧
+            grabber.setVideoOption("skip_frame", "nokey");
+        }
+        if (request.getPixelFormat() == FrameExtractionRequest.PixelFormat.GRAY8) {
+            grabber.setPixelFormat(AV_PIX_FMT_GRAY8);
+        }
+    }
+
+    /**
+     * 需要缩小时让FFmpeg（swscale）在像素格式转换的同时缩放，之后的转换与编码都只处理缩小后的图像
+     */
+    private void applyOutputSize(FFmpegFrameGrabber grabber, FrameExtractionRequest request, VideoInfo videoInfo) {
+        int[] outputSize = resolveOutputSize(request, videoInfo);
+        if (outputSize[0] != videoInfo.getWidth() || outputSize[1] != videoInfo.getHeight()) {
+            grabber.setImageScalingFlags(SWS_AREA);
+            grabber.setImageWidth(outputSize[0]);
+            grabber.setImageHeight(outputSize[1]);
+        }
+    }
+
+    /**
+     * 计算输出尺寸：按 maxWidth/maxHeight 保持宽高比缩小，不放大，返回 [宽, 高]
+     */
+    private int[] resolveOutputSize(FrameExtractionRequest request, VideoInfo videoInfo) {
+        int width = videoInfo.getWidth();
+        int height = videoInfo.getHeight();
+        if (width <= 0 || height <= 0) {
+            return new int[]{width, height};
+        }
+        
+        double scale = 1.0;
+        if (request.getMaxWidth() != null) {
+            scale = Math.min(scale, (double) request.getMaxWidth() / width);
+        }
+        if (request.getMaxHeight() != null) {
+            scale = Math.min(scale, (double) request.getMaxHeight() / height);
+        }
+        if (scale >= 1.0) {
+            return new int[]{width, height};
+        }
+        return new int[]{Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale))};
+    }
+
+    /**
+     * 判断是否需要分段并行解码
+     * 关键帧与场景变化模式、相似帧去重需要按时间顺序逐帧判断，雪碧图按时间顺序排列缩略图，不分段；
+     * 输出到磁盘或对象存储时也不分段：分段在合并前保留各帧的编码数据，而顺序解码时每帧编码后即交给写入器
+     */
+    private boolean shouldExtractInSegments(FrameExtractionRequest request, VideoInfo videoInfo) {
+        if (threadPoolSize <= 1 || chunkDurationSeconds <= 0
+                || request.getMode() != FrameExtractionRequest.Mode.DEFAULT
+                || request.getDedup() != FrameExtractionRequest.Dedup.NONE
+                || request.isSpriteOutput()
+                || request.getSink() != FrameExtractionRequest.Sink.INLINE) {
+            return false;
+        }
+        int[] range = resolveTimeRangeMs(request, videoInfo);
+        return range[1] - range[0] > chunkDurationSeconds * 1000L;
+    }
+
+    /**
+     * 分段并行提取帧
+     * 将 [开始时间, 结束时间) 按 chunk-duration 切分为关键帧对齐的分段，每个分段使用独立的grabber在
+     * segmentExecutor 中解码，最后按时间顺序合并，帧序号与顺序解码保持一致
+     */
+    private void extractFramesInSegments(File videoFile, FFmpegFrameGrabber probeGrabber,
+            FrameExtractionRequest request, VideoInfo videoInfo, KeyframeIndex keyframeIndex,
+            Consumer<FrameExtractionResponse.FrameData> frameConsumer, ExtractionTimings timings) throws Exception {
+
+        int[] range = resolveTimeRangeMs(request, videoInfo);
+        int startTimeMs = range[0];
+        int endTimeMs = range[1];
+        boolean byInterval = request.getIntervalSeconds() != null;
+
+        List<long[]> segments = planSegments(probeGrabber, keyframeIndex, startTimeMs, endTimeMs);
+        logger.info("分段并行解码: 时间范围 [{}ms, {}ms) 切分为 {} 段", startTimeMs, endTimeMs, segments.size());
+
+        List<Future<List<FrameExtractionResponse.FrameData>>> futures = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            long segmentStartUs = segments.get(i)[0];
+            long segmentEndUs = segments.get(i)[1];
+            boolean lastSegment = i == segments.size() - 1;
+            futures.add(segmentExecutor.submit(() -> extractSegment(videoFile, request, videoInfo, keyframeIndex,
+                startTimeMs, endTimeMs, segmentStartUs, segmentEndUs, lastSegment, timings)));
+        }
+
+        // 按分段顺序合并，转换失败的帧以null占位，用于保持与顺序解码相同的编号规则
+        FrameSequencer sequencer = new FrameSequencer(!byInterval, frameConsumer);
+        try {
+            for (Future<List<FrameExtractionResponse.FrameData>> future : futures) {
+                future.get().forEach(sequencer);
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+
+    /**
+     * 规划分段：按 chunk-duration 得到名义分界点，再将每个分界点回退到其之前最近的关键帧，
+     * 使各分段从关键帧开始解码，避免相邻分段重复解码同一个GOP；有完整的关键帧索引时直接查索引
+     * 返回的每个元素为 [分段开始微秒, 分段结束微秒)
+     */
+    private List<long[]> planSegments(FFmpegFrameGrabber grabber, KeyframeIndex keyframeIndex,
+            int startTimeMs, int endTimeMs) throws Exception {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(startTimeMs * 1000L);
+
+        long chunkMs = chunkDurationSeconds * 1000L;
+        for (long nominalMs = startTimeMs + chunkMs; nominalMs < endTimeMs; nominalMs += chunkMs) {
+            long keyframeUs = keyframeIndex != null && keyframeIndex.isComplete()
+                ? keyframeIndex.keyframeAtOrBefore(nominalMs * 1000L)
+                : findKeyframeAtOrBefore(grabber, nominalMs * 1000L);
+            // 关键帧查找失败或回退到了上一个分界点之前时，直接使用名义分界点
+            long boundaryUs = keyframeUs > boundaries.get(boundaries.size() - 1) ? keyframeUs : nominalMs * 1000L;
+            if (boundaryUs > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(boundaryUs);
+            }
+        }
+        boundaries.add(endTimeMs * 1000L);
+
+        List<long[]> segments = new ArrayList<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            segments.add(new long[]{boundaries.get(i), boundaries.get(i + 1)});
+        }
+        return segments;
+    }
+
+    /**
+     * 查找指定时间点（微秒）之前最近的关键帧时间，只读取数据包不解码，失败时返回-1
+     */
+    private long findKeyframeAtOrBefore(FFmpegFrameGrabber grabber, long timestampUs) throws Exception {
+        AVFormatContext formatContext = grabber.getFormatContext();
+        int videoStreamIndex = findVideoStreamIndex(formatContext);
+        if (videoStreamIndex < 0) {
+            return -1;
+        }
+
+        AVStream stream = formatContext.streams(videoStreamIndex);
+        long streamTimestamp = av_rescale_q(timestampUs, av_make_q(1, 1000000), stream.time_base());
+        if (av_seek_frame(formatContext, videoStreamIndex, streamTimestamp, AVSEEK_FLAG_BACKWARD) < 0) {
+            return -1;
+        }
+
+        AVPacket packet;
+        while ((packet = grabber.grabPacket()) != null) {
+            if (packet.stream_index() == videoStreamIndex && (packet.flags() & AV_PKT_FLAG_KEY) != 0) {
+                long pts = packet.pts() != AV_NOPTS_VALUE ? packet.pts() : packet.dts();
+                if (pts == AV_NOPTS_VALUE) {
+                    return -1;
+                }
+                long startTime = stream.start_time() != AV_NOPTS_VALUE ? stream.start_time() : 0;
+                return av_rescale_q(pts - startTime, stream.time_base(), av_make_q(1, 1000000));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查找第一个视频流的索引，不存在时返回-1
+     */
+    private int findVideoStreamIndex(AVFormatContext formatContext) {
+        for (int i = 0; i < formatContext.nb_streams(); i++) {
+            if (formatContext.streams(i).codecpar().codec_type() == AVMEDIA_TYPE_VIDEO) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 使用独立的grabber解码一个分段，返回按时间顺序排列的转换结果（转换失败的帧为null，序号在合并时统一分配）
+     */
+    private List<FrameExtractionResponse.FrameData> extractSegment(File videoFile, FrameExtractionRequest request,
+            VideoInfo videoInfo, KeyframeIndex keyframeIndex, int startTimeMs, int endTimeMs,
+            long segmentStartUs, long segmentEndUs, boolean lastSegment, ExtractionTimings timings) throws Exception {
+
+        List<FrameExtractionResponse.FrameData> slots = new ArrayList<>();
+        FrameEncodePipeline pipeline = createEncodePipeline(request, videoInfo, slots::add, null, timings);
+
+        // 解码线程在grabber关闭后归还
+        DecoderThreadScheduler.Lease decoderThreads = null;
+        try (FFmpegFrameGrabber grabber = new TimedFrameGrabber(videoFile, timings)) {
+            decoderThreads = decoderThreadScheduler.configure(grabber);
+            configureGrabber(grabber, request);
+            grabber.start();
+            applyOutputSize(grabber, request, videoInfo);
+
+            if (request.getIntervalSeconds() != null) {
+                extractFramesByInterval(grabber, pipeline, request, videoInfo, keyframeIndex,
+                    startTimeMs, endTimeMs, segmentStartUs, segmentEndUs);
+            } else {
+                extractAllFrames(grabber, pipeline, startTimeMs, endTimeMs,
+                    segmentStartUs, segmentEndUs, lastSegment);
+            }
+            pipeline.finish();
+        } catch (Exception e) {
+            pipeline.cancel();
+            throw e;
+        } finally {
+            if (decoderThreads != null) {
+                decoderThreads.close();
+            }
+        }
+        return slots;
+    }
+
+
+    /**
+     * 检查当前线程是否已被中断（任务取消），中断时终止解码
+     */
+    private void checkInterrupted() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("帧提取已取消");
+        }
+    }
+
+    /**
+     * 计算提取的时间范围（毫秒），返回 [开始时间, 结束时间]
+     */
+    private int[] resolveTimeRangeMs(FrameExtractionRequest request, VideoInfo videoInfo) {
+        int startTimeMs = (request.getStartTimeSeconds() != null ? request.getStartTimeSeconds() : 0) * 1000;
+        int endTimeMs = request.getEndTimeSeconds() != null ?
+            request.getEndTimeSeconds() * 1000 : (int) videoInfo.getDuration();
+        return new int[]{startTimeMs, endTimeMs};
+    }
+
+    /**
+     * 将Frame转换为FrameData，cacheKeyPrefix 不为null时将编码结果放入帧缓存
+     */
+    private FrameExtractionResponse.FrameData convertFrameToData(Frame frame, double timestampSeconds,
+            int frameNumber, FrameExtractionRequest request, String cacheKeyPrefix, ExtractionTimings timings) {
         
         try {
-            BufferedImage bufferedImage = frameConverter.convert(frame);
-            if (bufferedImage == null) {
+            if (frame.image == null) {
                 return null;
             }
             
             FrameExtractionResponse.FrameData frameData = new FrameExtractionResponse.FrameData(
-                frameNumber, timestampSeconds, null, bufferedImage.getWidth(), bufferedImage.getHeight());
+                frameNumber, timestampSeconds, null, frame.imageWidth, frame.imageHeight);
             
-            // 如果需要返回base64编码
+            // 如果需要返回图片数据（base64编码或二进制）
             if (request.getReturnBase64()) {
-                String base64 = convertImageToBase64(bufferedImage, 
-                    request.getOutputFormat(), request.getImageQuality());
-                frameData.setBase64Data(base64);
+                long encodeStartNanos = System.nanoTime();
+                ImageEncoder.EncodedImage encoded =
+                    imageEncoder.encode(frame, resolveOutputFormat(request), resolveImageQuality(request));
+                timings.record(ExtractionTimings.Stage.ENCODE, encodeStartNanos);
+                timings.addEncodedBytes(encoded.getLength());
+                if (cacheKeyPrefix != null) {
+                    frameCache.put(cacheKeyPrefix, Math.round(timestampSeconds * 1000), encoded.getData(),
+                        encoded.getLength(), frame.imageWidth, frame.imageHeight);
+                }
+                if (request.isBinaryOutput() || request.getSink() != FrameExtractionRequest.Sink.INLINE) {
+                    frameData.setImageData(encoded.toByteArray());
+                } else {
+                    long base64StartNanos = System.nanoTime();
+                    frameData.setBase64Data(encoded.toBase64());
+                    timings.record(ExtractionTimings.Stage.BASE64, base64StartNanos);
+                }
             }
             
             return frameData;
@@ -259,59 +1511,143 @@ public class VideoProcessorService {
         }
     }
 
+    private String resolveOutputFormat(FrameExtractionRequest request) {
+        return request.getOutputFormat() != null ? request.getOutputFormat() : defaultOutputFormat;
+    }
+
+    private int resolveImageQuality(FrameExtractionRequest request) {
+        return request.getImageQuality() != null ? request.getImageQuality() : defaultImageQuality;
+    }
+
     /**
-     * 将BufferedImage转换为base64编码
+     * 保存临时文件
+     * 文件名唯一且不包含上传的原始文件名；上传内容已被容器缓存到磁盘时 transferTo 直接移动该文件
      */
-    private String convertImageToBase64(BufferedImage image, String format, Integer quality) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        
-        String outputFormat = format != null ? format : defaultOutputFormat;
+    private File saveTemporaryFile(MultipartFile videoFile) throws IOException {
+        File tempFile = createTemporaryFile(videoFile.getOriginalFilename());
         
-        // 写入图片
-        ImageIO.write(image, outputFormat, baos);
+        // 保存文件
+        videoFile.transferTo(tempFile);
         
-        byte[] imageBytes = baos.toByteArray();
-        return Base64.getEncoder().encodeToString(imageBytes);
+        return tempFile;
     }
 
     /**
-     * 保存临时文件
+     * 将上传流通过 FileChannel.transferFrom 一次性写入临时文件
+     * 需要内容摘要时由调用方传入 DigestInputStream，写入的同时完成摘要计算
      */
-    private File saveTemporaryFile(MultipartFile videoFile) throws IOException {
+    private File spoolToTemporaryFile(String originalFilename, InputStream in) throws IOException {
+        File tempFile = createTemporaryFile(originalFilename);
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            transferAll(source, target, 0);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * 将已读取的视频头部按原文件偏移写入临时文件，剩余上传内容接在头部之后
+     */
+    private File spoolToTemporaryFile(String originalFilename, VideoHeaderProbe.Header header, InputStream in)
+            throws IOException {
+        File tempFile = createTemporaryFile(originalFilename);
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel target = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            header.writeTo(target);
+            transferAll(source, target, header.getLength());
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    /**
+     * 从 position 开始写入输入通道的全部内容
+     */
+    private void transferAll(ReadableByteChannel source, FileChannel target, long position) throws IOException {
+        long transferred;
+        while ((transferred = target.transferFrom(source, position, SPOOL_CHUNK_BYTES)) > 0) {
+            position += transferred;
+        }
+    }
+
+    /**
+     * 在临时目录中创建唯一命名的空文件，保留原始扩展名
+     */
+    private File createTemporaryFile(String originalFilename) throws IOException {
         // 确保临时目录存在
         Path tempDirPath = Paths.get(tempDir);
         if (!Files.exists(tempDirPath)) {
             Files.createDirectories(tempDirPath);
         }
         
-        // 创建临时文件
-        String fileName = System.currentTimeMillis() + "_" + videoFile.getOriginalFilename();
-        File tempFile = new File(tempDirPath.toFile(), fileName);
-        
-        // 保存文件
-        videoFile.transferTo(tempFile);
+        String extension = getFileExtension(originalFilename).replaceAll("[^A-Za-z0-9]", "");
+        return Files.createTempFile(tempDirPath, "upload-", extension.isEmpty() ? "" : "." + extension).toFile();
+    }
+
+    /**
+     * 从上传流已缓冲的开头部分探测视频信息，不会消耗流中的数据；开头部分不足以探测时返回null
+     */
+    private VideoInfo probeBufferedHeader(VideoSource source, BufferedInputStream in) throws IOException {
+        byte[] prefix;
+        in.mark(FORWARD_PROBE_BYTES);
+        try {
+            prefix = in.readNBytes(FORWARD_PROBE_BYTES);
+        } finally {
+            in.reset();
+        }
         
-        return tempFile;
+        try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(new ByteArrayInputStream(prefix), prefix.length)) {
+            videoHeaderProbe.configure(grabber);
+            grabber.start();
+            return createVideoInfo(source, grabber);
+        } catch (FFmpegFrameGrabber.Exception e) {
+            logger.info("仅凭上传流开头探测失败: {}", e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * 验证视频格式
+     * 判断上传流能否只向前解码，不会消耗流中的数据
+     * mkv/webm/flv 天然支持；mp4/mov 需要 moov 盒位于 mdat 之前（faststart），通过查看顶层盒顺序判断
      */
-    private boolean isValidVideoFormat(String fileName) {
-        if (fileName == null) {
+    private boolean isForwardDecodable(String extension, BufferedInputStream in) throws IOException {
+        if (STREAMABLE_FORMATS.contains(extension)) {
+            return true;
+        }
+        if (!"mp4".equals(extension) && !"mov".equals(extension)) {
             return false;
         }
         
-        String extension = getFileExtension(fileName).toLowerCase();
-        String[] formats = supportedFormats.split(",");
-        
-        for (String format : formats) {
-            if (format.trim().equalsIgnoreCase(extension)) {
-                return true;
+        in.mark(FORWARD_PROBE_BYTES);
+        try {
+            byte[] header = new byte[8];
+            long offset = 0;
+            while (offset + header.length <= FORWARD_PROBE_BYTES && in.readNBytes(header, 0, 8) == 8) {
+                long boxSize = ((header[0] & 0xFFL) << 24) | ((header[1] & 0xFFL) << 16)
+                    | ((header[2] & 0xFFL) << 8) | (header[3] & 0xFFL);
+                String boxType = new String(header, 4, 4, StandardCharsets.US_ASCII);
+                if ("moov".equals(boxType)) {
+                    return true;
+                }
+                if ("mdat".equals(boxType) || boxSize < 8) {
+                    // 64位长度（size=1）或延伸到文件末尾（size=0）的盒无法继续判断
+                    return false;
+                }
+                offset += boxSize;
+                if (offset > FORWARD_PROBE_BYTES) {
+                    return false;
+                }
+                in.skipNBytes(boxSize - 8);
             }
+            return false;
+        } finally {
+            in.reset();
         }
-        
-        return false;
     }
 
     /**
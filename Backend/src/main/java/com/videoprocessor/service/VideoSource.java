@@ -0,0 +1,132 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.VideoInfo;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 待处理的视频源
+ * 封装磁盘上的视频文件，或只能向前读取的视频流（边上传边解码），以及原始文件名、大小；
+ * 临时文件在关闭时删除，缓存中的视频在关闭时释放引用
+ */
+public class VideoSource implements AutoCloseable {
+
+    private final File file;
+    private final InputStream inputStream;
+    private final String originalFilename;
+    private final Long fileSize;
+    private final boolean temporary;
+    private final String videoId;
+    private final Runnable releaseAction;
+    private VideoInfo headerInfo;
+
+    public VideoSource(File file, String originalFilename, long fileSize, boolean temporary) {
+        this.file = file;
+        this.inputStream = null;
+        this.originalFilename = originalFilename;
+        this.fileSize = fileSize;
+        this.temporary = temporary;
+        this.videoId = null;
+        this.releaseAction = null;
+    }
+
+    /**
+     * 引用缓存中视频文件的视频源，关闭时执行 releaseAction 释放引用
+     */
+    public VideoSource(File file, String originalFilename, long fileSize, String videoId, Runnable releaseAction) {
+        this.file = file;
+        this.inputStream = null;
+        this.originalFilename = originalFilename;
+        this.fileSize = fileSize;
+        this.temporary = false;
+        this.videoId = videoId;
+        this.releaseAction = releaseAction;
+    }
+
+    /**
+     * 基于输入流的视频源，只支持从头到尾顺序解码，不能跳转；文件大小未知时为null
+     */
+    public VideoSource(InputStream inputStream, String originalFilename, Long fileSize) {
+        this.file = null;
+        this.inputStream = inputStream;
+        this.originalFilename = originalFilename;
+        this.fileSize = fileSize;
+        this.temporary = false;
+        this.videoId = null;
+        this.releaseAction = null;
+    }
+
+    /**
+     * 创建读取该视频源的grabber，输入流不做回退缓冲
+     */
+    public FFmpegFrameGrabber createGrabber() {
+        return file != null ? new FFmpegFrameGrabber(file) : new FFmpegFrameGrabber(inputStream, 0);
+    }
+
+    /**
+     * 创建记录打开、跳转与解码耗时的grabber
+     */
+    public FFmpegFrameGrabber createGrabber(ExtractionTimings timings) {
+        return file != null ? new TimedFrameGrabber(file, timings) : new TimedFrameGrabber(inputStream, 0, timings);
+    }
+
+    /**
+     * 是否支持跳转（磁盘文件支持，输入流只能向前读取）
+     */
+    public boolean isSeekable() {
+        return file != null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * 边上传边解码时由上传流开头探测到的视频信息，用于准入估算；未探测或探测失败时为null
+     */
+    public VideoInfo getHeaderInfo() {
+        return headerInfo;
+    }
+
+    public void setHeaderInfo(VideoInfo headerInfo) {
+        this.headerInfo = headerInfo;
+    }
+
+    /**
+     * 缓存中视频的ID（内容SHA-256），未缓存时为null
+     */
+    public String getVideoId() {
+        return videoId;
+    }
+
+    /**
+     * 清理临时文件，释放缓存引用，关闭输入流
+     */
+    @Override
+    public void close() {
+        if (releaseAction != null) {
+            releaseAction.run();
+        }
+        if (temporary && file.exists()) {
+            file.delete();
+        }
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (IOException ignored) {
+                // 上传流关闭失败不影响处理结果
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.SpriteSheet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 生成WebVTT缩略图轨道
+ * 每个缩略图一条cue，时间段从该缩略图的时间到下一个缩略图的时间（最后一个到结束时间），
+ * 内容为 {拼图文件名}#xywh=x,y,w,h，播放器拖动进度条时据此从拼图中截取对应区域
+ */
+public final class WebVttWriter {
+
+    private WebVttWriter() {}
+
+    public static String thumbnailTrack(List<SpriteSheet> sheets, double endSeconds) {
+        List<SpriteSheet.Tile> tiles = new ArrayList<>();
+        List<String> references = new ArrayList<>();
+        for (SpriteSheet sheet : sheets) {
+            for (SpriteSheet.Tile tile : sheet.getTiles()) {
+                tiles.add(tile);
+                references.add(sheet.getFileName() + "#xywh=" + tile.getX() + "," + tile.getY() + ","
+                    + tile.getWidth() + "," + tile.getHeight());
+            }
+        }
+
+        StringBuilder vtt = new StringBuilder("WEBVTT\n");
+        for (int i = 0; i < tiles.size(); i++) {
+            double start = tiles.get(i).getTimestampSeconds();
+            double end = i + 1 < tiles.size() ? tiles.get(i + 1).getTimestampSeconds() : endSeconds;
+            vtt.append('\n')
+                .append(formatTime(start)).append(" --> ").append(formatTime(Math.max(start, end))).append('\n')
+                .append(references.get(i)).append('\n');
+        }
+        return vtt.toString();
+    }
+
+    /**
+     * 格式化为 hh:mm:ss.ttt
+     */
+    private static String formatTime(double seconds) {
+        long ms = Math.round(seconds * 1000);
+        return String.format(Locale.ROOT, "%02d:%02d:%02d.%03d",
+            ms / 3_600_000, ms / 60_000 % 60, ms / 1000 % 60, ms % 1000);
+    }
+}
@@ -0,0 +1,65 @@
+package com.videoprocessor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 编码结果的base64测试
+ * 编码数据只占复用缓冲区的一部分，结果必须与 Base64.Encoder 编码该部分相同，且每次只分配结果字符串
+ */
+class EncodedImageTest {
+
+    // 复用缓冲区的大小，与编码数据长度不同
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    @Test
+    void toBase64MatchesJdkEncoder() {
+        byte[] buffer = randomBytes(BUFFER_BYTES);
+        ImageEncoder.EncodedImage image = new ImageEncoder.EncodedImage();
+        // 覆盖无填充、一个与两个填充字符，以及占满缓冲区的情况
+        for (int length : new int[]{0, 1, 2, 3, 4, 5, 1000, 1001, 1002, 40_000, BUFFER_BYTES}) {
+            image.set(buffer, length);
+            assertEquals(Base64.getEncoder().encodeToString(Arrays.copyOf(buffer, length)), image.toBase64(),
+                "长度 " + length);
+        }
+    }
+
+    @Test
+    void toBase64AllocatesOnlyTheResultString() {
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        byte[] buffer = randomBytes(BUFFER_BYTES);
+        ImageEncoder.EncodedImage image = new ImageEncoder.EncodedImage();
+        int length = 40_001;
+        image.set(buffer, length);
+        int encodedLength = 4 * ((length + 2) / 3);
+
+        // 预热，复用的字符缓冲区在第一次编码时扩容
+        for (int i = 0; i < 2_000; i++) {
+            image.toBase64();
+        }
+
+        int rounds = 200;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            image.toBase64();
+        }
+        long perCall = (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+
+        // 结果字符串的字节数组与对象头，不包含编码数据的副本
+        assertTrue(perCall < encodedLength + 256, "每次分配 " + perCall + " 字节，结果字符串 " + encodedLength + " 字节");
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
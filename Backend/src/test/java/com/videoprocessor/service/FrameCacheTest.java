@@ -0,0 +1,84 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 帧缓存测试
+ * 淘汰后的块被新写入的帧复用，读出的数据必须与写入时相同，且分配的堆外内存不超过上限
+ */
+class FrameCacheTest {
+
+    private static final String PREFIX = "video:jpg:85:640x360@";
+
+    @Test
+    void evictedBlocksAreReusedWithinTheBudget() {
+        FrameCache cache = createCache(DataSize.ofKilobytes(256));
+        Random random = new Random(42);
+        byte[][] written = new byte[200][];
+        for (int i = 0; i < written.length; i++) {
+            // 跨越块边界的长度
+            written[i] = randomBytes(random, 1 + random.nextInt(40 * 1024));
+            byte[] buffer = Arrays.copyOf(written[i], written[i].length + 100);
+            cache.put(PREFIX, i, buffer, written[i].length, 640, 360);
+        }
+
+        Map<String, Object> stats = cache.getStats();
+        assertTrue((long) stats.get("allocatedBytes") <= DataSize.ofKilobytes(256).toBytes(), stats.toString());
+        assertTrue((long) stats.get("evictions") > 0, stats.toString());
+
+        // 最近写入的帧仍在缓存中且内容完整，最早的帧已被淘汰
+        assertNull(cache.get(PREFIX, 0));
+        int cached = 0;
+        for (int i = written.length - 1; i >= 0; i--) {
+            FrameExtractionResponse.FrameData frame = cache.get(PREFIX, i);
+            if (frame == null) {
+                break;
+            }
+            assertArrayEquals(written[i], frame.getImageData(), "时间点 " + i);
+            cached++;
+        }
+        assertEquals((int) stats.get("entries"), cached);
+    }
+
+    @Test
+    void replacingAFrameReleasesItsBlocks() {
+        FrameCache cache = createCache(DataSize.ofKilobytes(64));
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            cache.put(PREFIX, 0, randomBytes(random, 48 * 1024), 48 * 1024, 640, 360);
+        }
+        byte[] last = randomBytes(random, 20 * 1024);
+        cache.put(PREFIX, 0, last, last.length, 640, 360);
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1, stats.get("entries"));
+        assertEquals((long) last.length, stats.get("bytes"));
+        assertEquals(0L, stats.get("evictions"));
+        assertArrayEquals(last, cache.get(PREFIX, 0).getImageData());
+    }
+
+    private static FrameCache createCache(DataSize maxSize) {
+        FrameCache cache = new FrameCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        return cache;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,225 @@
+package com.videoprocessor.service;
+
+import com.videoprocessor.model.FrameExtractionRequest;
+import com.videoprocessor.model.FrameExtractionResponse;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 图片编码的并发测试
+ * 同一组编码任务（jpg/png/bmp/webp、GRAY8、缩放）先顺序执行得到参考结果，再由多个线程同时执行，
+ * 每个并发结果必须与参考结果逐字节相同；帧缓存关闭，保证每次提取都实际解码与编码
+ */
+@SpringBootTest(properties = {
+    "video.processor.frame-cache.enabled=false",
+    "video.processor.admission.enabled=false",
+    "video.processor.temp-dir=${java.io.tmpdir}/video-processor-test"
+})
+class ImageEncoderConcurrencyTest {
+
+    private static final String[] NATIVE_FORMATS = {"jpg", "png", "bmp", "webp"};
+
+    // ImageIO没有webp编码器
+    private static final String[] IMAGEIO_FORMATS = {"jpg", "png", "bmp"};
+
+    // 每个任务并发执行的次数
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    static Path tempDir;
+
+    private static byte[] video;
+
+    @Autowired
+    private ImageEncoder imageEncoder;
+
+    @Autowired
+    private VideoProcessorService videoProcessorService;
+
+    @BeforeAll
+    static void createVideo() throws Exception {
+        Path file = tempDir.resolve("sample.mp4");
+        try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(file.toFile(), 640, 360);
+             Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            recorder.setFormat("mp4");
+            recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG4);
+            recorder.setFrameRate(25);
+            recorder.setGopSize(25);
+            recorder.setVideoQuality(4);
+            recorder.start();
+            for (int i = 0; i < 75; i++) {
+                recorder.record(converter.convert(createImage(640, 360, BufferedImage.TYPE_3BYTE_BGR, i)));
+            }
+            recorder.stop();
+        }
+        video = Files.readAllBytes(file);
+    }
+
+    @Test
+    void concurrentNativeEncodingMatchesSequential() throws Exception {
+        assertConcurrentEncodingMatchesSequential(imageEncoder, NATIVE_FORMATS);
+    }
+
+    @Test
+    void concurrentImageIOEncodingMatchesSequential() throws Exception {
+        // 未初始化原生编码的实例只使用ImageIO
+        assertConcurrentEncodingMatchesSequential(new ImageEncoder(), IMAGEIO_FORMATS);
+    }
+
+    @Test
+    void concurrentExtractionMatchesSequential() throws Exception {
+        List<Callable<List<String>>> tasks = new ArrayList<>();
+        tasks.add(extraction(request("jpg", 1, null, FrameExtractionRequest.PixelFormat.BGR24)));
+        tasks.add(extraction(request("png", 1, 320, FrameExtractionRequest.PixelFormat.BGR24)));
+        tasks.add(extraction(request("bmp", 1, null, FrameExtractionRequest.PixelFormat.GRAY8)));
+        tasks.add(extraction(request("webp", null, 160, FrameExtractionRequest.PixelFormat.BGR24)));
+        tasks.add(extraction(request("jpg", null, 200, FrameExtractionRequest.PixelFormat.GRAY8)));
+
+        FrameExtractionRequest keyframes = request("png", null, 240, FrameExtractionRequest.PixelFormat.BGR24);
+        keyframes.setMode(FrameExtractionRequest.Mode.KEYFRAMES);
+        tasks.add(extraction(keyframes));
+
+        List<List<String>> references = new ArrayList<>();
+        for (Callable<List<String>> task : tasks) {
+            references.add(task.call());
+        }
+
+        List<List<String>> results = runConcurrently(tasks);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(references.get(i % tasks.size()), results.get(i), "第" + (i % tasks.size()) + "个提取任务");
+        }
+    }
+
+    private void assertConcurrentEncodingMatchesSequential(ImageEncoder encoder, String[] formats) throws Exception {
+        List<Frame> frames = new ArrayList<>();
+        try (Java2DFrameConverter converter = new Java2DFrameConverter()) {
+            frames.add(converter.convert(createImage(640, 360, BufferedImage.TYPE_3BYTE_BGR, 1)).clone());
+            frames.add(converter.convert(createImage(320, 180, BufferedImage.TYPE_3BYTE_BGR, 2)).clone());
+            frames.add(converter.convert(createImage(640, 360, BufferedImage.TYPE_BYTE_GRAY, 3)).clone());
+            frames.add(converter.convert(createImage(161, 97, BufferedImage.TYPE_BYTE_GRAY, 4)).clone());
+        }
+
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        for (Frame frame : frames) {
+            for (String format : formats) {
+                tasks.add(() -> encoder.encode(frame, format, 80).toByteArray());
+            }
+        }
+
+        List<byte[]> references = new ArrayList<>();
+        for (Callable<byte[]> task : tasks) {
+            byte[] reference = task.call();
+            assertTrue(reference.length > 0);
+            references.add(reference);
+        }
+
+        List<byte[]> results = runConcurrently(tasks);
+        for (int i = 0; i < results.size(); i++) {
+            assertArrayEquals(references.get(i % tasks.size()), results.get(i), "第" + (i % tasks.size()) + "个编码任务");
+        }
+    }
+
+    /**
+     * 每个任务提交 ROUNDS 次，所有线程就绪后同时开始，结果按 任务下标 + 轮次 * 任务数 排列
+     */
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        int count = tasks.size() * ROUNDS;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            CountDownLatch ready = new CountDownLatch(count);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Callable<T> task = tasks.get(i % tasks.size());
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    return task.call();
+                }));
+            }
+            assertTrue(ready.await(30, TimeUnit.SECONDS));
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(5, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<List<String>> extraction(FrameExtractionRequest request) {
+        return () -> {
+            MockMultipartFile file = new MockMultipartFile("file", "sample.mp4", "video/mp4", video);
+            FrameExtractionResponse response = videoProcessorService.extractFrames(file, null, request);
+            assertTrue(response.isSuccess(), response.getMessage());
+            assertFalse(response.getFrames().isEmpty());
+            return response.getFrames().stream()
+                .map(frame -> frame.getFrameNumber() + "@" + frame.getTimestampSeconds() + ":"
+                    + frame.getWidth() + "x" + frame.getHeight() + ":" + frame.getBase64Data())
+                .collect(Collectors.toList());
+        };
+    }
+
+    private static FrameExtractionRequest request(String format, Integer intervalSeconds, Integer maxWidth,
+            FrameExtractionRequest.PixelFormat pixelFormat) {
+        FrameExtractionRequest request = new FrameExtractionRequest();
+        request.setVideoFileName("sample.mp4");
+        request.setOutputFormat(format);
+        request.setIntervalSeconds(intervalSeconds);
+        request.setMaxWidth(maxWidth);
+        request.setPixelFormat(pixelFormat);
+        return request;
+    }
+
+    /**
+     * 带渐变背景与移动色块的测试画面，seed 不同时内容不同
+     */
+    private static BufferedImage createImage(int width, int height, int type, int seed) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            for (int x = 0; x < width; x += 4) {
+                graphics.setColor(new Color((x * 255 / width + seed * 7) % 256, (seed * 13) % 256, 255 - x * 255 / width));
+                graphics.fillRect(x, 0, 4, height);
+            }
+            graphics.setColor(Color.WHITE);
+            graphics.fillOval((seed * 17) % width, (seed * 11) % height, width / 5, height / 5);
+            graphics.setColor(Color.BLACK);
+            graphics.drawString("frame " + seed, 10, height / 2);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}